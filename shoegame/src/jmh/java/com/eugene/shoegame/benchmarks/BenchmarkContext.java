@@ -0,0 +1,54 @@
+package com.eugene.shoegame.benchmarks;
+
+import com.eugene.shoegame.ShoegameApplication;
+import com.eugene.shoegame.dto.ShoeDTO;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the application (without the web server) against an in-memory H2 database, so the benchmarks
+// run offline and measure our code rather than the network to the real database.
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        // Passed as command line arguments, those take precedence over application.properties.
+        return new SpringApplicationBuilder(ShoegameApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:shoegame-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        // Its write callbacks do nothing, so the write benchmarks don't maintain the in-memory index.
+                        "--shoegame.search.engine=postgres",
+                        // The relay would claim and delete the outbox rows the writes leave behind, in the
+                        // background and in the middle of the measurements.
+                        "--shoegame.outbox.relay-enabled=false",
+                        "--logging.level.root=warn");
+    }
+
+    static List<ShoeDTO> shoes(int count) {
+        String[] brands = {"Nike", "Adidas", "Puma", "New Balance", "Asics"};
+        String[] colors = {"Black", "White", "Red", "Blue", "Green"};
+        List<ShoeDTO> shoes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shoes.add(ShoeDTO.builder()
+                    .name("Shoe " + i)
+                    .brand(brands[i % brands.length])
+                    .size(6.0 + (i % 10) * 0.5)
+                    .color(colors[(i / brands.length) % colors.length])
+                    .price(50.0 + (i % 200))
+                    .build());
+        }
+        return shoes;
+    }
+}
@@ -0,0 +1,107 @@
+package com.eugene.shoegame.benchmarks;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeGroupStatsDTO;
+import com.eugene.shoegame.entities.ShoeEntity;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.services.ShoeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Read paths against H2. closetAsEntities is how the shoe list used to be loaded (managed entities, then
+// converted), closetAsProjection is the DTO constructor query used today. Every benchmark runs in a read-only
+// transaction like the service methods do, so the two closet variants only differ in the query and mapping.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShoeRepositoryBenchmark {
+
+    @Param({"100", "5000"})
+    private int closetSize;
+
+    private ConfigurableApplicationContext context;
+    private ShoeRepository shoeRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Long userId;
+    private Long middleShoeId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        shoeRepository = context.getBean(ShoeRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        userId = context.getBean(UserRepository.class).save(new UserEntity(null, "bench", "password")).getUserId();
+        ShoeService shoeService = context.getBean(ShoeService.class);
+        List<ShoeDTO> shoes = BenchmarkContext.shoes(closetSize);
+        for (int from = 0; from < shoes.size(); from += 500) {
+            shoeService.createShoes(userId, shoes.subList(from, Math.min(from + 500, shoes.size())));
+        }
+        List<ShoeDTO> closet = shoeRepository.findAllShoeDTOsByUserId(userId);
+        middleShoeId = closet.get(closet.size() / 2).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ShoeDTO> closetAsProjection() {
+        return readOnlyTransaction.execute(status -> shoeRepository.findAllShoeDTOsByUserId(userId));
+    }
+
+    @Benchmark
+    public List<ShoeDTO> closetAsEntities() {
+        return readOnlyTransaction.execute(status -> {
+            List<ShoeEntity> shoeEntities = shoeRepository.findAllByUserEntity_UserId(userId);
+            List<ShoeDTO> shoeDTOs = new ArrayList<>(shoeEntities.size());
+            for (ShoeEntity shoeEntity : shoeEntities) {
+                shoeDTOs.add(ShoeDTO.builder()
+                        .id(shoeEntity.getId())
+                        .name(shoeEntity.getName())
+                        .brand(shoeEntity.getBrand())
+                        .size(shoeEntity.getSize())
+                        .color(shoeEntity.getColor())
+                        .price(shoeEntity.getPrice())
+                        .userId(shoeEntity.getUserEntity().getUserId())
+                        .version(shoeEntity.getVersion())
+                        .build());
+            }
+            return shoeDTOs;
+        });
+    }
+
+    @Benchmark
+    public List<ShoeDTO> keysetPage() {
+        return readOnlyTransaction.execute(status -> shoeRepository.findShoeDTOsByUserIdAfter(userId, middleShoeId, Limit.of(50)));
+    }
+
+    @Benchmark
+    public ShoeDTO shoeById() {
+        return readOnlyTransaction.execute(status -> shoeRepository.findShoeDTOByIdAndUserId(middleShoeId, userId).orElseThrow());
+    }
+
+    @Benchmark
+    public Long versionById() {
+        return readOnlyTransaction.execute(status -> shoeRepository.findVersionByIdAndUserId(middleShoeId, userId).orElseThrow());
+    }
+
+    @Benchmark
+    public List<ShoeGroupStatsDTO> brandStats() {
+        return readOnlyTransaction.execute(status -> shoeRepository.findBrandStatsByUserId(userId));
+    }
+}
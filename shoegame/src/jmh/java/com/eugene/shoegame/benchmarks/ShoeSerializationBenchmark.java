@@ -0,0 +1,72 @@
+package com.eugene.shoegame.benchmarks;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson (de)serialization of shoe lists, configured the way Spring Boot configures the ObjectMapper.
+// writeStreaming mirrors GET /shoes/stream, which writes one object at a time instead of the whole list.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShoeSerializationBenchmark {
+
+    private static final TypeReference<List<ShoeDTO>> SHOE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<ShoeDTO> shoes;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        shoes = new ArrayList<>(size);
+        long id = 1;
+        for (ShoeDTO shoeDTO : BenchmarkContext.shoes(size)) {
+            shoeDTO.setId(id++);
+            shoeDTO.setUserId(1L);
+            shoeDTO.setVersion(0L);
+            shoes.add(shoeDTO);
+        }
+        json = objectMapper.writeValueAsBytes(shoes);
+    }
+
+    @Benchmark
+    public byte[] writeList() throws IOException {
+        return objectMapper.writeValueAsBytes(shoes);
+    }
+
+    @Benchmark
+    public byte[] writeStreaming() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(json.length);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            for (ShoeDTO shoeDTO : shoes) {
+                generator.writeObject(shoeDTO);
+            }
+            generator.writeEndArray();
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public List<ShoeDTO> readList() throws IOException {
+        return objectMapper.readValue(json, SHOE_LIST);
+    }
+}
@@ -0,0 +1,88 @@
+package com.eugene.shoegame.benchmarks;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// What a shoe list costs on the wire in each format GET /shoes can answer with (JSON, Smile, CBOR, see
+// WireFormatConfig), with and without gzip: CPU per list here, bytes per list printed once per trial
+// ("wire size: ..." in the JMH output).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShoeWireFormatBenchmark {
+
+    private static final TypeReference<List<ShoeDTO>> SHOE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<ShoeDTO> shoes;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "json" -> new JsonFactory();
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        shoes = new ArrayList<>(size);
+        long id = 1;
+        for (ShoeDTO shoeDTO : BenchmarkContext.shoes(size)) {
+            shoeDTO.setId(id++);
+            shoeDTO.setUserId(1L);
+            shoeDTO.setVersion(0L);
+            shoes.add(shoeDTO);
+        }
+        body = write();
+        System.out.printf("%nwire size: format=%s gzip=%s size=%d -> %d bytes (%.1f per shoe)%n",
+                format, gzip, size, body.length, (double) body.length / size);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body != null ? body.length : 8192);
+        try (OutputStream outputStream = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            objectMapper.writeValue(outputStream, shoes);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<ShoeDTO> read() throws IOException {
+        InputStream bytes = new ByteArrayInputStream(body);
+        try (InputStream inputStream = gzip ? new GZIPInputStream(bytes) : bytes) {
+            return objectMapper.readValue(inputStream, SHOE_LIST);
+        }
+    }
+}
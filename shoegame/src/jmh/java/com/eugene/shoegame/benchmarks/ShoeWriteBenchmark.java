@@ -0,0 +1,68 @@
+package com.eugene.shoegame.benchmarks;
+
+import com.eugene.shoegame.dto.ShoeBatchResultDTO;
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.services.ShoeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Inserting the same shoes through the batch endpoint's service method (one transaction, JDBC batches)
+// versus one createShoe call per shoe. One operation = batchSize shoes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShoeWriteBenchmark {
+
+    @Param({"10", "100"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ShoeService shoeService;
+    private ShoeRepository shoeRepository;
+    private Long userId;
+    private List<ShoeDTO> shoes;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        shoeService = context.getBean(ShoeService.class);
+        shoeRepository = context.getBean(ShoeRepository.class);
+        userId = context.getBean(UserRepository.class).save(new UserEntity(null, "bench", "password")).getUserId();
+        shoes = BenchmarkContext.shoes(batchSize);
+    }
+
+    // Keeps the table from growing without bound over the run.
+    @TearDown(Level.Iteration)
+    public void clearShoes() {
+        shoeRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ShoeBatchResultDTO> createBatch() {
+        return shoeService.createShoes(userId, shoes);
+    }
+
+    @Benchmark
+    public List<ShoeDTO> createOneByOne() {
+        List<ShoeDTO> created = new ArrayList<>(shoes.size());
+        for (ShoeDTO shoeDTO : shoes) {
+            created.add(shoeService.createShoe(userId, shoeDTO));
+        }
+        return created;
+    }
+}
@@ -0,0 +1,42 @@
+package com.eugene.shoegame.benchmarks;
+
+import com.eugene.shoegame.dto.UserDTO;
+import com.eugene.shoegame.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// Logins per second with BCrypt password checks on the PasswordHasher pool. Several benchmark threads log in
+// at once, like concurrent requests would, so the result reflects the pool size as well as the hash cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class UserLoginBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserDTO credentials;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        userService = context.getBean(UserService.class);
+        credentials = UserDTO.builder().username("bench").password("correct horse battery staple").build();
+        userService.registerUser(credentials);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDTO login() {
+        return userService.loginUser(credentials);
+    }
+}
@@ -0,0 +1,69 @@
+package com.eugene.shoegame.services;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.ShoeEntity;
+import com.eugene.shoegame.entities.UserEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the entity <-> DTO conversions in ShoeServiceImpl. The constructor variant is the baseline for
+// what the Lombok builder adds on top (one extra builder object per DTO).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShoeMappingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private List<ShoeEntity> entities;
+    private List<ShoeDTO> dtos;
+
+    @Setup
+    public void setUp() {
+        UserEntity userEntity = new UserEntity(1L, "bench", "password");
+        entities = new ArrayList<>(size);
+        dtos = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            ShoeEntity shoeEntity = ShoeEntity.builder()
+                    .id(i).name("Shoe " + i).brand("Nike").size(10.0).color("Black").price(100.0 + i)
+                    .version(0L).userEntity(userEntity).build();
+            entities.add(shoeEntity);
+            dtos.add(ShoeServiceImpl.convertShoeEntityToShoeDTO(shoeEntity));
+        }
+    }
+
+    @Benchmark
+    public List<ShoeDTO> entitiesToDTOsWithBuilder() {
+        List<ShoeDTO> result = new ArrayList<>(entities.size());
+        for (ShoeEntity shoeEntity : entities) {
+            result.add(ShoeServiceImpl.convertShoeEntityToShoeDTO(shoeEntity));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ShoeDTO> entitiesToDTOsWithConstructor() {
+        List<ShoeDTO> result = new ArrayList<>(entities.size());
+        for (ShoeEntity shoeEntity : entities) {
+            result.add(new ShoeDTO(shoeEntity.getId(), shoeEntity.getName(), shoeEntity.getBrand(), shoeEntity.getSize(),
+                    shoeEntity.getColor(), shoeEntity.getPrice(), shoeEntity.getUserEntity().getUserId(), shoeEntity.getVersion()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ShoeEntity> dtosToEntities() {
+        List<ShoeEntity> result = new ArrayList<>(dtos.size());
+        for (ShoeDTO shoeDTO : dtos) {
+            result.add(ShoeServiceImpl.convertShoeDTOToShoeEntity(shoeDTO));
+        }
+        return result;
+    }
+}
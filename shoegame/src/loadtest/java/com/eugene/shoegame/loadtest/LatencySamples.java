@@ -0,0 +1,53 @@
+package com.eugene.shoegame.loadtest;
+
+import java.util.Arrays;
+
+// Latencies (nanoseconds) of one endpoint as seen by one virtual user. Every virtual user has its own
+// instances, so recording needs no locking; they are merged once the run is over.
+final class LatencySamples {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private int errors;
+
+    void record(long nanos, boolean error) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    void addAll(LatencySamples other) {
+        if (size + other.size > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, size + other.size));
+        }
+        System.arraycopy(other.samples, 0, samples, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    int count() {
+        return size;
+    }
+
+    int errors() {
+        return errors;
+    }
+
+    long[] sorted() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
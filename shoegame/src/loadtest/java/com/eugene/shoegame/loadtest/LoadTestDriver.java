@@ -0,0 +1,189 @@
+package com.eugene.shoegame.loadtest;
+
+import com.eugene.shoegame.ShoegameApplication;
+import com.eugene.shoegame.dto.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Drives mixed register/login/shoe CRUD/list traffic through the REST API and reports throughput and
+// p50/p95/p99 latency per endpoint, on the console and as JSON.
+//
+// mvn -B -P loadtest verify boots the app in this JVM with the loadtest profile (H2, seeded data) and runs
+// against it. Options go in -Dloadtest.args, e.g. -Dloadtest.args="--duration=120 --concurrency=64 --users=500",
+// --base-url=http://host:8080 targets an already running server (started with the loadtest profile) instead.
+// --virtual-threads=true|false picks the request execution mode of the app booted here (spring.threads.virtual.enabled,
+// false by default like the application), a server of its own is started with SHOEGAME_VIRTUAL_THREADS instead.
+//
+// By default the run is closed-loop: every virtual user sends its next request as soon as the last one returned.
+// When the server stalls, the users stall with it and stop sending, so the requests that would have queued up
+// behind the stall are never measured and p95/p99 come out too good (coordinated omission). --rate=<req/s> runs
+// open-loop instead: the requests are spread over the virtual users on a fixed schedule, and each latency is
+// measured from the time its request was due, not from when a user got round to sending it. Give it enough
+// virtual users that each one's interval (concurrency / rate) is well above the normal response time.
+//
+// The app booted here shares the JVM and its CPUs with the driver, so in-JVM results are only indicative.
+// For real numbers, start the server on its own machine (or at least its own JVM) and use --base-url.
+public final class LoadTestDriver {
+
+    private LoadTestDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        // Requests per second over all virtual users, 0 runs closed-loop.
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        int users = Integer.parseInt(options.getOrDefault("users", "100"));
+        String shoesPerUser = options.getOrDefault("shoes-per-user", "50");
+        String password = options.getOrDefault("password", "loadtest-password");
+        String output = options.getOrDefault("output", "target/loadtest-result.json");
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("base-url");
+        Boolean virtualThreads = null;
+        if (baseUrl == null) {
+            virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+            context = SpringApplication.run(ShoegameApplication.class,
+                    "--spring.profiles.active=loadtest",
+                    "--server.port=0",
+                    "--logging.level.root=warn",
+                    "--spring.threads.virtual.enabled=" + virtualThreads,
+                    "--shoegame.loadtest.users=" + users,
+                    "--shoegame.loadtest.shoes-per-user=" + shoesPerUser,
+                    "--shoegame.loadtest.password=" + password);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        } else if (options.containsKey("virtual-threads")) {
+            throw new IllegalArgumentException("--virtual-threads only applies to the app started by the driver, "
+                    + "start the server at " + baseUrl + " with SHOEGAME_VIRTUAL_THREADS instead");
+        }
+
+        try {
+            System.out.printf("Load test against %s%s: %d virtual users, %s, %ds warmup + %ds measured%n",
+                    baseUrl, virtualThreads == null ? "" : (virtualThreads ? " (virtual threads)" : " (platform threads)"),
+                    concurrency, rate > 0 ? "open-loop at " + rate + " req/s" : "closed-loop", warmupSeconds, durationSeconds);
+            Map<String, LatencySamples> results = run(baseUrl, concurrency, rate, users, password, warmupSeconds, durationSeconds);
+            report(results, baseUrl, virtualThreads, concurrency, rate, durationSeconds, new File(output));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, LatencySamples> run(String baseUrl, int concurrency, double rate, int users, String password,
+                                                   int warmupSeconds, int durationSeconds) throws InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + Duration.ofSeconds(warmupSeconds).toNanos();
+        long stopAt = measureFrom + Duration.ofSeconds(durationSeconds).toNanos();
+        // Open-loop: every virtual user is due once per interval, offset from each other so the requests
+        // arrive evenly spread instead of in bursts of concurrency.
+        long intervalNanos = rate > 0 ? (long) (concurrency * 1_000_000_000L / rate) : 0;
+
+        List<VirtualUser> virtualUsers = new ArrayList<>(concurrency);
+        try (HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                UserDTO credentials = UserDTO.builder()
+                        .username(LoadTestProperties.USERNAME_PREFIX + (i % users))
+                        .password(password)
+                        .build();
+                long firstDueAt = startedAt + intervalNanos * i / concurrency;
+                VirtualUser virtualUser = new VirtualUser(httpClient, objectMapper, baseUrl, i, credentials, measureFrom, stopAt,
+                        firstDueAt, intervalNanos);
+                virtualUsers.add(virtualUser);
+                executor.submit(virtualUser);
+            }
+            // Closing the executor waits for every virtual user to reach the end of the run.
+        }
+
+        Map<String, LatencySamples> merged = new TreeMap<>();
+        for (VirtualUser virtualUser : virtualUsers) {
+            virtualUser.samples().forEach((operation, samples) ->
+                    merged.computeIfAbsent(operation, key -> new LatencySamples()).addAll(samples));
+        }
+        return merged;
+    }
+
+    // virtualThreads is null when the server isn't ours and we can't tell.
+    private static void report(Map<String, LatencySamples> results, String baseUrl, Boolean virtualThreads,
+                               int concurrency, double rate, int durationSeconds, File output) throws IOException {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        LatencySamples total = new LatencySamples();
+        results.forEach((operation, samples) -> {
+            endpoints.add(summary(operation, samples, durationSeconds));
+            total.addAll(samples);
+        });
+        endpoints.add(summary("ALL", total, durationSeconds));
+
+        System.out.printf("%n%-22s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map<String, Object> endpoint : endpoints) {
+            System.out.printf("%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.get("endpoint"), endpoint.get("requests"), endpoint.get("errors"), endpoint.get("throughput"),
+                    endpoint.get("p50Ms"), endpoint.get("p95Ms"), endpoint.get("p99Ms"), endpoint.get("maxMs"));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("baseUrl", baseUrl);
+        report.put("virtualThreads", virtualThreads);
+        report.put("concurrency", concurrency);
+        // null for a closed-loop run.
+        report.put("rate", rate > 0 ? rate : null);
+        report.put("durationSeconds", durationSeconds);
+        report.put("endpoints", endpoints);
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+        System.out.println("\nResults written to " + output.getPath());
+    }
+
+    private static Map<String, Object> summary(String operation, LatencySamples samples, int durationSeconds) {
+        long[] sorted = samples.sorted();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", operation);
+        summary.put("requests", samples.count());
+        summary.put("errors", samples.errors());
+        summary.put("throughput", (double) samples.count() / durationSeconds);
+        summary.put("p50Ms", LatencySamples.percentileMillis(sorted, 50));
+        summary.put("p95Ms", LatencySamples.percentileMillis(sorted, 95));
+        summary.put("p99Ms", LatencySamples.percentileMillis(sorted, 99));
+        summary.put("maxMs", LatencySamples.percentileMillis(sorted, 100));
+        return summary;
+    }
+
+    // --key=value pairs, anything else is rejected so typos don't silently fall back to defaults.
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,222 @@
+package com.eugene.shoegame.loadtest;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.UserDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// One simulated client: logs in as a seeded user and then loops over a weighted mix of user and shoe requests
+// until the run ends. Latencies are only recorded once the warmup is over. Closed-loop (intervalNanos 0) it sends
+// back to back. Open-loop it sends one request per interval and measures each from the time it was due, so
+// the wait behind a slow response counts towards the latency of the requests it delayed.
+final class VirtualUser implements Runnable {
+
+    private static final TypeReference<List<ShoeDTO>> SHOE_LIST = new TypeReference<>() {
+    };
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Relative weights of the operations, roughly a mobile client that mostly reads its closet.
+    private static final String[] OPERATIONS = {
+            "GET /shoes", "GET /shoes/{id}", "POST /shoes", "PUT /shoes/{id}", "PATCH /shoes/{id}",
+            "DELETE /shoes/{id}", "POST /users/login", "POST /users/register"};
+    private static final int[] WEIGHTS = {25, 30, 10, 10, 10, 5, 7, 3};
+    private static final int TOTAL_WEIGHT = 100;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final int id;
+    private final UserDTO credentials;
+    private final long measureFromNanos;
+    private final long stopAtNanos;
+    private final long intervalNanos;
+    private long nextDueAtNanos;
+    // While an open-loop slot is running, the time its request was due, the latency is measured from it.
+    private boolean onSchedule;
+    private long dueAtNanos;
+
+    private final Map<String, LatencySamples> samples = new HashMap<>();
+    private final List<Long> knownShoeIds = new ArrayList<>();
+    private final List<Long> createdShoeIds = new ArrayList<>();
+    private String authorization;
+    private Long userId;
+    private int registrations;
+
+    VirtualUser(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl, int id, UserDTO credentials,
+                long measureFromNanos, long stopAtNanos, long firstDueAtNanos, long intervalNanos) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.id = id;
+        this.credentials = credentials;
+        this.measureFromNanos = measureFromNanos;
+        this.stopAtNanos = stopAtNanos;
+        this.nextDueAtNanos = firstDueAtNanos;
+        this.intervalNanos = intervalNanos;
+    }
+
+    Map<String, LatencySamples> samples() {
+        return samples;
+    }
+
+    @Override
+    public void run() {
+        try {
+            login();
+            HttpResponse<String> page = send("GET /shoes", get("/shoegame/users/" + userId + "/shoes?after=0&limit=200"));
+            if (page.statusCode() == 200) {
+                objectMapper.readValue(page.body(), SHOE_LIST).forEach(shoe -> knownShoeIds.add(shoe.getId()));
+            }
+
+            while (System.nanoTime() < stopAtNanos) {
+                if (intervalNanos > 0) {
+                    // Behind schedule after a slow response, the overdue requests go out right away.
+                    long wait = nextDueAtNanos - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(Duration.ofNanos(wait));
+                    }
+                    onSchedule = true;
+                    dueAtNanos = nextDueAtNanos;
+                    nextDueAtNanos += intervalNanos;
+                }
+                runOperation(pickOperation());
+                onSchedule = false;
+            }
+        } catch (IOException e) {
+            System.err.println("Virtual user " + id + " stopped: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(TOTAL_WEIGHT);
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            roll -= WEIGHTS[i];
+            if (roll < 0) {
+                return OPERATIONS[i];
+            }
+        }
+        return OPERATIONS[0];
+    }
+
+    private void runOperation(String operation) throws IOException, InterruptedException {
+        String shoesPath = "/shoegame/users/" + userId + "/shoes";
+        switch (operation) {
+            case "GET /shoes" -> send(operation, get(shoesPath + "?after=0&limit=50"));
+            case "GET /shoes/{id}" -> {
+                if (!knownShoeIds.isEmpty()) {
+                    send(operation, get(shoesPath + "/" + randomShoeId()));
+                }
+            }
+            case "POST /shoes" -> {
+                HttpResponse<String> response = send(operation, json("POST", shoesPath, randomShoe()));
+                if (response.statusCode() == 201) {
+                    Long shoeId = objectMapper.readValue(response.body(), ShoeDTO.class).getId();
+                    knownShoeIds.add(shoeId);
+                    createdShoeIds.add(shoeId);
+                }
+            }
+            case "PUT /shoes/{id}" -> {
+                if (!knownShoeIds.isEmpty()) {
+                    send(operation, json("PUT", shoesPath + "/" + randomShoeId(), randomShoe()));
+                }
+            }
+            case "PATCH /shoes/{id}" -> {
+                if (!knownShoeIds.isEmpty()) {
+                    Map<String, Object> patch = Map.of("price", 40.0 + ThreadLocalRandom.current().nextInt(260));
+                    send(operation, json("PATCH", shoesPath + "/" + randomShoeId(), patch));
+                }
+            }
+            // Only shoes this virtual user created itself, the seeded closet stays intact.
+            case "DELETE /shoes/{id}" -> {
+                if (!createdShoeIds.isEmpty()) {
+                    Long shoeId = createdShoeIds.remove(createdShoeIds.size() - 1);
+                    knownShoeIds.remove(shoeId);
+                    send(operation, authorized(HttpRequest.newBuilder(uri(shoesPath + "/" + shoeId)).DELETE()));
+                }
+            }
+            case "POST /users/login" -> login();
+            case "POST /users/register" -> {
+                UserDTO newUser = UserDTO.builder()
+                        .username("loadtest-new-" + id + "-" + (registrations++) + "-" + System.nanoTime())
+                        .password("password")
+                        .build();
+                send(operation, json("POST", "/shoegame/users/register", credentialsBody(newUser)));
+            }
+            default -> throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private void login() throws IOException, InterruptedException {
+        HttpResponse<String> response = send("POST /users/login", json("POST", "/shoegame/users/login", credentialsBody(credentials)));
+        if (response.statusCode() != 200) {
+            throw new IOException("Login of " + credentials.getUsername() + " failed with " + response.statusCode());
+        }
+        userId = objectMapper.readValue(response.body(), UserDTO.class).getUserId();
+        authorization = response.headers().firstValue("Authorization").orElse(null);
+    }
+
+    private HttpResponse<String> send(String operation, HttpRequest.Builder request) throws IOException, InterruptedException {
+        long start = onSchedule ? dueAtNanos : System.nanoTime();
+        onSchedule = false;
+        HttpResponse<String> response = httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+        long end = System.nanoTime();
+        if (start >= measureFromNanos && end <= stopAtNanos) {
+            boolean error = response.statusCode() >= 400;
+            samples.computeIfAbsent(operation, key -> new LatencySamples()).record(end - start, error);
+        }
+        return response;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return authorized(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    // UserDTO's password is write-only, Jackson would leave it out of the request body.
+    private static Map<String, String> credentialsBody(UserDTO user) {
+        return Map.of("username", user.getUsername(), "password", user.getPassword());
+    }
+
+    private HttpRequest.Builder json(String method, String path, Object body) throws IOException {
+        String contentType = method.equals("PATCH") ? "application/merge-patch+json" : "application/json";
+        return authorized(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", contentType)
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder request) {
+        return authorization != null ? request.header("Authorization", authorization) : request;
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private Long randomShoeId() {
+        return knownShoeIds.get(ThreadLocalRandom.current().nextInt(knownShoeIds.size()));
+    }
+
+    private ShoeDTO randomShoe() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ShoeDTO.builder()
+                .name("Load Shoe " + random.nextInt(10_000))
+                .brand(random.nextBoolean() ? "Nike" : "Adidas")
+                .size(6.0 + random.nextInt(14) * 0.5)
+                .color(random.nextBoolean() ? "Black" : "White")
+                .price(40.0 + random.nextInt(260))
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.eugene.shoegame.changefeed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Bound from shoegame.change-feed.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.change-feed")
+public class ChangeFeedProperties {
+
+    // Changes kept per user for clients that reconnect with Last-Event-ID.
+    private int historySize = 256;
+    // Changes waiting to be sent to one client. A client that lets it fill up is disconnected, it resumes
+    // from its last event id when it comes back.
+    private int queueCapacity = 64;
+    private int maxSubscribers = 10_000;
+    private int maxSubscribersPerUser = 5;
+    // A comment line is sent when nothing happened for this long, keeps proxies from cutting the connection
+    // and tells us when the client is gone.
+    private Duration heartbeat = Duration.ofSeconds(15);
+    // Connections are closed after this long, the client reconnects and resumes.
+    private Duration timeout = Duration.ofMinutes(30);
+    // History of users nobody listens to is dropped after this long, up to maxUsers histories are kept.
+    private Duration retention = Duration.ofHours(1);
+    private long maxUsers = 100_000;
+}
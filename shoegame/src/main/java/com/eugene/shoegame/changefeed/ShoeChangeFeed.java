@@ -0,0 +1,254 @@
+package com.eugene.shoegame.changefeed;
+
+import com.eugene.shoegame.dto.ShoeChangeDTO;
+import com.eugene.shoegame.services.ShoeChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans committed shoe changes out to the Server-Sent Events connections of GET /shoes/changes.
+// Each user has a short history of numbered changes and a list of subscribers. Publishing (on the thread that
+// committed the write) only appends to the history and offers the change to each subscriber's bounded queue,
+// it never waits for a client. Every subscriber has a virtual thread that drains its queue into the connection.
+// A subscriber whose queue is full is disconnected instead of slowing everyone down: it's only marked closed,
+// its own thread completes the connection. SseEmitter.send and complete are synchronized on the emitter, and
+// complete() on the publishing thread would wait for a send stuck on the slow client's socket.
+// Event ids are "<epoch>-<sequence>": the epoch changes with every start, so an id from before a restart (whose
+// history is gone) is recognised and answered with a "reset" event, the client then fetches the list again.
+@Slf4j
+@Component
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ShoeChangeFeed {
+
+    public static final String RESET_EVENT = "reset";
+
+    private static final FeedEntry CLOSE = new FeedEntry(null, 0, null, null);
+
+    private final ChangeFeedProperties properties;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Cache<Long, UserFeed> feeds;
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadFactory senders = Thread.ofVirtual().name("shoe-changes-", 0).factory();
+    // The socket writes themselves. A send blocked on a slow client inside the emitter's monitor would pin the
+    // carrier of a virtual thread, here it only holds a platform thread. At most one per subscriber, and only
+    // while a write is in progress.
+    private final ExecutorService writers = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("shoe-changes-write-", 0).daemon().factory());
+    private final Counter evictions;
+
+    @Autowired
+    public ShoeChangeFeed(ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.feeds = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getRetention())
+                .maximumSize(properties.getMaxUsers())
+                // Only happens to a feed with subscribers when maxUsers is too small, they reconnect and get a reset.
+                .<Long, UserFeed>removalListener((userId, feed, cause) -> {
+                    if (feed != null) {
+                        feed.closeAll();
+                    }
+                })
+                .build();
+        Gauge.builder("shoegame.changes.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open change feed connections")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("shoegame.changes.evictions")
+                .description("Change feed connections closed because the client fell behind")
+                .register(meterRegistry);
+    }
+
+    // After commit only, a rolled back write must not show up in anyone's feed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShoeChanged(ShoeChangedEvent event) {
+        feeds.get(event.getUserId(), id -> new UserFeed()).publish(event.getChange());
+    }
+
+    // Returns null when there are too many connections already (overall or for this user).
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        UserFeed feed = feeds.get(userId, id -> new UserFeed());
+        Subscriber subscriber = new Subscriber(userId, feed, emitter);
+        if (!feed.subscribe(subscriber, lastEventId)) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        senders.newThread(subscriber::send).start();
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private record FeedEntry(String id, long sequence, String name, Object data) {
+    }
+
+    private final class UserFeed {
+
+        private final ArrayDeque<FeedEntry> history = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private long sequence;
+
+        synchronized void publish(ShoeChangeDTO change) {
+            sequence++;
+            FeedEntry entry = new FeedEntry(eventId(), sequence, change.getType().name().toLowerCase(), change);
+            if (history.size() == properties.getHistorySize()) {
+                history.removeFirst();
+            }
+            history.addLast(entry);
+            for (Subscriber subscriber : List.copyOf(subscribers)) {
+                if (!subscriber.queue.offer(entry)) {
+                    evictions.increment();
+                    log.debug("Change feed of user {} disconnected a subscriber that fell behind", subscriber.userId);
+                    subscriber.close();
+                }
+            }
+        }
+
+        // Queues what the client missed since lastEventId (or a reset when we can't tell) and adds it to the
+        // subscribers, in one step so no change published in between gets lost or sent twice.
+        synchronized boolean subscribe(Subscriber subscriber, String lastEventId) {
+            if (subscribers.size() >= properties.getMaxSubscribersPerUser()) {
+                return false;
+            }
+            if (lastEventId != null) {
+                long lastSequence = sequenceOf(lastEventId);
+                long oldest = history.isEmpty() ? sequence + 1 : history.peekFirst().sequence();
+                List<FeedEntry> missed = new ArrayList<>();
+                for (FeedEntry entry : history) {
+                    if (entry.sequence() > lastSequence) {
+                        missed.add(entry);
+                    }
+                }
+                if (lastSequence < oldest - 1 || lastSequence > sequence || missed.size() > properties.getQueueCapacity()) {
+                    subscriber.queue.offer(new FeedEntry(eventId(), sequence, RESET_EVENT, Map.of()));
+                } else {
+                    subscriber.queue.addAll(missed);
+                }
+            }
+            subscribers.add(subscriber);
+            return true;
+        }
+
+        synchronized void unsubscribe(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+        }
+
+        synchronized void closeAll() {
+            for (Subscriber subscriber : List.copyOf(subscribers)) {
+                subscriber.close();
+            }
+        }
+
+        private String eventId() {
+            return epoch + "-" + sequence;
+        }
+
+        // -1 for ids of another epoch or ids we can't read, those always get a reset.
+        private long sequenceOf(String eventId) {
+            int dash = eventId.lastIndexOf('-');
+            if (dash < 0 || !eventId.substring(0, dash).equals(epoch)) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(eventId.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long userId;
+        private final UserFeed feed;
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedEntry> queue = new ArrayBlockingQueue<>(properties.getQueueCapacity() + 1);
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Long userId, UserFeed feed, SseEmitter emitter) {
+            this.userId = userId;
+            this.feed = feed;
+            this.emitter = emitter;
+        }
+
+        // Runs on the subscriber's own virtual thread until the connection is closed, and completes it then.
+        void send() {
+            try {
+                while (!closed.get()) {
+                    FeedEntry entry = queue.poll(properties.getHeartbeat().toMillis(), TimeUnit.MILLISECONDS);
+                    if (entry == CLOSE) {
+                        break;
+                    }
+                    // Reading the feed counts as access, so the history of a user with open connections isn't dropped.
+                    feeds.getIfPresent(userId);
+                    SseEmitter.SseEventBuilder event = entry == null
+                            ? SseEmitter.event().comment("heartbeat")
+                            : SseEmitter.event().id(entry.id()).name(entry.name()).data(entry.data(), MediaType.APPLICATION_JSON);
+                    writers.submit(() -> {
+                        emitter.send(event);
+                        return null;
+                    }).get();
+                }
+            } catch (ExecutionException | RejectedExecutionException e) {
+                // The client went away, the connection was completed while we were sending, or we're shutting down.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+                // No send of ours is in progress anymore, so this doesn't wait for the socket.
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException e) {
+                    // Already completed.
+                }
+            }
+        }
+
+        // Called under the feed's lock when the subscriber fell behind, so it must not touch the emitter.
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriberCount.decrementAndGet();
+            feed.unsubscribe(this);
+            // Wakes the sender up, the queue may be full (that's why we're closing). It completes the connection
+            // once its current send (if any) is over.
+            queue.clear();
+            queue.offer(CLOSE);
+        }
+    }
+}
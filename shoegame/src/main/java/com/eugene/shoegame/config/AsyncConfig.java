@@ -0,0 +1,12 @@
+package com.eugene.shoegame.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// @Async methods and async MVC responses (e.g. the shoe stream) run on Spring Boot's applicationTaskExecutor.
+// It is a bounded platform-thread pool (spring.task.execution.*), or one virtual thread per task when
+// spring.threads.virtual.enabled=true.
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
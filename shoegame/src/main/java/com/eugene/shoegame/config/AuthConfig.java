@@ -0,0 +1,41 @@
+package com.eugene.shoegame.config;
+
+import com.eugene.shoegame.security.TokenAuthenticationFilter;
+import com.eugene.shoegame.security.TokenAuthorizationInterceptor;
+import com.eugene.shoegame.security.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Puts the access-token check in front of the shoe endpoints, shoegame.token.enabled=false turns it off.
+@Configuration
+@ConditionalOnProperty(name = "shoegame.token.enabled", havingValue = "true", matchIfMissing = true)
+public class AuthConfig {
+
+    @Bean
+    public FilterRegistrationBean<TokenAuthenticationFilter> tokenAuthenticationFilter(TokenService tokenService) {
+        FilterRegistrationBean<TokenAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new TokenAuthenticationFilter(tokenService));
+        registration.addUrlPatterns("/shoegame/*");
+        // Before the rate limiter, which limits authenticated requests per user.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 40);
+        return registration;
+    }
+
+    // The actual check, on the path Spring MVC matched rather than the raw request URI.
+    @Bean
+    public WebMvcConfigurer tokenAuthorization(ObjectMapper objectMapper) {
+        TokenAuthorizationInterceptor interceptor = new TokenAuthorizationInterceptor(objectMapper);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns(TokenAuthorizationInterceptor.PATH_PATTERN);
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.eugene.shoegame.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Turns on Spring's cache abstraction. The provider, size and TTL come from the spring.cache.* properties,
+// the cache names below must match spring.cache.cache-names.
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_BY_ID = "usersById";
+    // Keyed by "userId:shoeId" so a shoe is only ever served to its owner.
+    public static final String SHOES = "shoes";
+    // Closet statistics per user id, evicted by every shoe write of that user.
+    public static final String SHOE_STATS = "shoeStats";
+
+    // The caches are written from inside the write transactions (@CachePut/@CacheEvict and the services' own
+    // puts and evicts). Wrapped like this a put or evict waits for the commit: a rolled-back write never leaves
+    // its value in the cache, and no other request sees the new value before the database has it.
+    // Reads still go straight to the cache. Static, so it's registered before the cache manager is created.
+    @Bean
+    static BeanPostProcessor transactionAwareCacheManager() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof TransactionAwareCacheManagerProxy)) {
+                    return new TransactionAwareCacheManagerProxy(cacheManager);
+                }
+                return bean;
+            }
+        };
+    }
+}
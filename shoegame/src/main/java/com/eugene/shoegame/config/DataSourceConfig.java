@@ -0,0 +1,130 @@
+package com.eugene.shoegame.config;
+
+import com.eugene.shoegame.datasource.ReadYourWrites;
+import com.eugene.shoegame.datasource.ReadYourWritesFilter;
+import com.eugene.shoegame.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds the Hikari pool from spring.datasource.* (url, credentials) and DataSourcePoolProperties.
+// With the actuator on the classpath Spring Boot publishes the pool's hikaricp.connections.* metrics
+// (active, idle, pending, acquire/usage timers and timeouts) for the "shoegame" pool.
+// The DataSource the application uses wraps it: read-only transactions go to the read replicas when there are
+// any (see ReadReplicaProperties and ReplicaRoutingDataSource), their pools are "shoegame-replica-<n>".
+@Configuration
+@EnableConfigurationProperties({DataSourcePoolProperties.class, ReadReplicaProperties.class})
+public class DataSourceConfig {
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties, DataSourcePoolProperties poolProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+
+        dataSource.setPoolName("shoegame");
+        dataSource.setMaximumPoolSize(poolProperties.getMaximumPoolSize());
+        dataSource.setMinimumIdle(poolProperties.getMinimumIdle());
+        dataSource.setConnectionTimeout(poolProperties.getConnectionTimeout().toMillis());
+        dataSource.setIdleTimeout(poolProperties.getIdleTimeout().toMillis());
+        dataSource.setMaxLifetime(poolProperties.getMaxLifetime().toMillis());
+        dataSource.setLeakDetectionThreshold(poolProperties.getLeakDetectionThreshold().toMillis());
+        configureDriver(dataSource, poolProperties);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(ReadReplicaProperties replicaProperties) {
+        return new ReadYourWrites(replicaProperties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             DataSourcePoolProperties poolProperties,
+                                                             ReadReplicaProperties replicaProperties,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<ReadReplicaProperties.Instance> instances = replicaProperties.getInstances();
+        for (int i = 0; i < instances.size(); i++) {
+            ReadReplicaProperties.Instance instance = instances.get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("shoegame-replica-" + i);
+            replica.setJdbcUrl(instance.getUrl());
+            replica.setUsername(instance.getUsername() != null ? instance.getUsername() : dataSourceProperties.determineUsername());
+            replica.setPassword(instance.getPassword() != null ? instance.getPassword() : dataSourceProperties.determinePassword());
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+            replica.setMinimumIdle(Math.min(poolProperties.getMinimumIdle(), replicaProperties.getMaximumPoolSize()));
+            replica.setConnectionTimeout(replicaProperties.getConnectionTimeout().toMillis());
+            replica.setIdleTimeout(poolProperties.getIdleTimeout().toMillis());
+            replica.setMaxLifetime(poolProperties.getMaxLifetime().toMillis());
+            replica.setLeakDetectionThreshold(poolProperties.getLeakDetectionThreshold().toMillis());
+            replica.setReadOnly(true);
+            // Don't fail startup on a replica that's down, the health check picks it up once it's back.
+            replica.setInitializationFailTimeout(-1);
+            // These aren't beans, so Spring Boot doesn't hook their hikaricp.* metrics up by itself.
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            configureDriver(replica, poolProperties);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, replicaProperties.getHealthCheckInterval(),
+                replicaProperties.getHealthCheckTimeout(), meterRegistry);
+    }
+
+    // The lazy proxy hands out a placeholder and only fetches the real connection on the first statement.
+    // By then the transaction is marked read-only (or not), which is what the routing goes by.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // Spring holds a session's connection until the session closes, with open-in-view that's the whole request.
+    // A read-only transaction would then leave the request stuck on a replica, so with replicas every
+    // transaction gets its own connection instead.
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling(ReadReplicaProperties replicaProperties) {
+        return hibernateProperties -> {
+            if (!replicaProperties.getInstances().isEmpty()) {
+                hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                        PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWrites readYourWrites,
+                                                                            ReadReplicaProperties replicaProperties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWrites));
+        registration.addUrlPatterns("/shoegame/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 150);
+        // Nothing to decide without replicas.
+        registration.setEnabled(!replicaProperties.getInstances().isEmpty());
+        return registration;
+    }
+
+    private void configureDriver(HikariDataSource dataSource, DataSourcePoolProperties poolProperties) {
+        if (dataSource.getJdbcUrl() != null && dataSource.getJdbcUrl().startsWith("jdbc:postgresql:")) {
+            dataSource.addDataSourceProperty("prepareThreshold", poolProperties.getPrepareThreshold());
+            dataSource.addDataSourceProperty("preparedStatementCacheQueries", poolProperties.getPreparedStatementCacheQueries());
+            dataSource.addDataSourceProperty("reWriteBatchedInserts", poolProperties.isReWriteBatchedInserts());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.eugene.shoegame.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Connection pool settings, bound from shoegame.datasource.pool.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.datasource.pool")
+public class DataSourcePoolProperties {
+
+    private int maximumPoolSize = 20;
+    private int minimumIdle = 5;
+    // How long a request waits for a free connection before failing.
+    private Duration connectionTimeout = Duration.ofSeconds(5);
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    // Kept below RDS/network idle limits so connections are recycled before they are cut.
+    private Duration maxLifetime = Duration.ofMinutes(30);
+    // Logs a stack trace when a connection is held longer than this, 0 turns it off.
+    private Duration leakDetectionThreshold = Duration.ofSeconds(30);
+
+    // PostgreSQL driver settings, ignored for other databases.
+    // Number of executions after which a statement becomes a server-side prepared statement.
+    private int prepareThreshold = 5;
+    private int preparedStatementCacheQueries = 256;
+    // Rewrites batched INSERTs into multi-row INSERTs, pairs with hibernate.jdbc.batch_size.
+    private boolean reWriteBatchedInserts = true;
+}
@@ -0,0 +1,20 @@
+package com.eugene.shoegame.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Makes @Timed work on any Spring bean. The services are annotated at class level with SERVICE_TIMER, so every
+// public method gets its own timer (tags class, method, exception), histogram buckets come from
+// management.metrics.distribution.* in application.properties.
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "shoegame.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package com.eugene.shoegame.config;
+
+import com.eugene.shoegame.querycount.QueryCountFilter;
+import com.eugene.shoegame.querycount.QueryCountProperties;
+import com.eugene.shoegame.querycount.QueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Per-request SQL statement counting, shoegame.query-count.enabled=false turns it off.
+@Configuration
+@ConditionalOnProperty(name = "shoegame.query-count.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(QueryCountProperties.class)
+public class QueryCountConfig {
+
+    @Bean
+    public QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterStatementInspector(QueryCounter queryCounter) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(QueryCounter queryCounter,
+                                                                    QueryCountProperties properties,
+                                                                    MeterRegistry meterRegistry) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(queryCounter, properties, meterRegistry));
+        registration.addUrlPatterns("/shoegame/*");
+        // Requests the token check rejects still show up (with 0 statements).
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+}
@@ -0,0 +1,53 @@
+package com.eugene.shoegame.config;
+
+import com.eugene.shoegame.ratelimit.AdmissionController;
+import com.eugene.shoegame.ratelimit.RateLimitFilter;
+import com.eugene.shoegame.ratelimit.RateLimitProperties;
+import com.eugene.shoegame.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Rate limiting and admission control for the REST API, shoegame.rate-limit.enabled=false turns both off.
+@Configuration
+@ConditionalOnProperty(name = "shoegame.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitProperties properties) {
+        return new RateLimiter(properties);
+    }
+
+    @Bean
+    public AdmissionController admissionController(RateLimitProperties properties, HikariDataSource dataSource,
+                                                   MeterRegistry meterRegistry) {
+        AdmissionController admissionController = new AdmissionController(properties, dataSource);
+        Gauge.builder("shoegame.admission.in.flight", admissionController, AdmissionController::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        return admissionController;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter,
+                                                                   AdmissionController admissionController,
+                                                                   RateLimitProperties properties,
+                                                                   ObjectMapper objectMapper,
+                                                                   MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(rateLimiter, admissionController, properties, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/shoegame/*");
+        // Before the query counter and the token check, a rejected request should cost as little as possible.
+        // After the token filter though, it tells which user the per-user limit applies to.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 50);
+        return registration;
+    }
+}
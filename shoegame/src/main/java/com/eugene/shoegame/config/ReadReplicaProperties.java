@@ -0,0 +1,32 @@
+package com.eugene.shoegame.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read replicas, bound from shoegame.datasource.read-replicas.* in application.properties. Without instances
+// everything goes to the primary (spring.datasource.*) as before.
+@Data
+@ConfigurationProperties(prefix = "shoegame.datasource.read-replicas")
+public class ReadReplicaProperties {
+
+    private List<Instance> instances = new ArrayList<>();
+    private int maximumPoolSize = 20;
+    // Kept short: a replica that doesn't hand out a connection in time is skipped and the primary serves the read.
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    // After a user's own write, their reads stay on the primary this long. Has to cover the replication lag.
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    @Data
+    public static class Instance {
+        private String url;
+        // Default to spring.datasource.username/password.
+        private String username;
+        private String password;
+    }
+}
@@ -1,23 +1,44 @@
 package com.eugene.shoegame.controllers;
 
+import com.eugene.shoegame.changefeed.ShoeChangeFeed;
+import com.eugene.shoegame.dto.ShoeBatchResultDTO;
 import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeSearchCriteriaDTO;
+import com.eugene.shoegame.dto.ShoeStatsDTO;
+import com.eugene.shoegame.exceptions.shoeexceptions.ShoeVersionConflictException;
 import com.eugene.shoegame.services.ShoeService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/shoegame/users/{userId}/shoes")
 public class ShoeController {
 
     private final ShoeService shoeService;
+    private final ObjectMapper objectMapper;
+    private final ShoeChangeFeed shoeChangeFeed;
 
     @Autowired
-    public ShoeController(ShoeService shoeService){
+    public ShoeController(ShoeService shoeService, ObjectMapper objectMapper, ShoeChangeFeed shoeChangeFeed){
         this.shoeService = shoeService;
+        this.objectMapper = objectMapper;
+        this.shoeChangeFeed = shoeChangeFeed;
     }
 
     @PostMapping
@@ -27,32 +48,162 @@ public class ShoeController {
 
     }
 
+    // The ETag is the shoe's version. A client revalidating with If-None-Match costs a version-only query,
+    // when nothing changed it gets a bodiless 304 (checkNotModified sets it, returning null ends the request).
     @GetMapping("/{id}")
-    public ResponseEntity<ShoeDTO> getShoeById(@PathVariable Long userId, @PathVariable Long id){
+    public ResponseEntity<ShoeDTO> getShoeById(@PathVariable Long userId, @PathVariable Long id, WebRequest request){
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(shoeETag(shoeService.getShoeVersion(userId, id)))) {
+            return null;
+        }
         ShoeDTO shoeDTO = shoeService.getShoeById(userId, id);
-        return ResponseEntity.ok(shoeDTO);
+        return ResponseEntity.ok().eTag(shoeETag(shoeDTO.getVersion())).body(shoeDTO);
     }
 
+    // Without paging parameters the whole closet is returned as before.
+    // With ?after=<last id seen>&limit=<n> only the next page of shoes (ordered by id) is returned.
+    // Lists get a weak ETag over the ids and versions, an unchanged list is answered with 304 and isn't serialized.
     @GetMapping
-    public ResponseEntity<List<ShoeDTO>> getAllShoesByUser(@PathVariable Long userId){
-        List<ShoeDTO> allShoes = shoeService.getAllShoesByUser(userId);
-        return ResponseEntity.ok(allShoes);
+    public ResponseEntity<List<ShoeDTO>> getAllShoesByUser(@PathVariable Long userId,
+                                                           @RequestParam(required = false) Long after,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           WebRequest request){
+        List<ShoeDTO> shoes = after == null && limit == null
+                ? shoeService.getAllShoesByUser(userId)
+                : shoeService.getShoesByUserAfter(userId, after, limit);
+
+        String eTag = shoeListETag(shoes);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(shoes);
+    }
+
+    // Writes the JSON array row by row while the database cursor is being read,
+    // so memory stays flat however many shoes the user owns.
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllShoesByUser(@PathVariable Long userId){
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                shoeService.streamAllShoesByUser(userId, shoeDTO -> {
+                    try {
+                        generator.writeObject(shoeDTO);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Server-Sent Events with every create/update/delete of the user's shoes (events "created", "updated",
+    // "deleted", data is a ShoeChangeDTO), so clients can stop polling the list. A client reconnecting with
+    // Last-Event-ID (EventSource does that by itself) gets what it missed. When that's no longer known it gets a
+    // "reset" event instead and should fetch the list again. Subscribe before fetching the list to not miss anything.
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamShoeChanges(@PathVariable Long userId,
+                                                        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId){
+        SseEmitter emitter = shoeChangeFeed.subscribe(userId, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // e.g. /search?brand=Nike&minSize=10&maxSize=10&maxPrice=150&sort=price&direction=desc&limit=20
+    @GetMapping("/search")
+    public ResponseEntity<List<ShoeDTO>> searchShoesByUser(@PathVariable Long userId, ShoeSearchCriteriaDTO criteria){
+        List<ShoeDTO> shoes = shoeService.searchShoesByUser(userId, criteria);
+        return ResponseEntity.ok(shoes);
+    }
+
+    // Closet summary (count, total value, brand/color/size breakdowns) without downloading the list.
+    @GetMapping("/stats")
+    public ResponseEntity<ShoeStatsDTO> getShoeStatsByUser(@PathVariable Long userId){
+        ShoeStatsDTO stats = shoeService.getShoeStatsByUser(userId);
+        return ResponseEntity.ok(stats);
     }
 
     @PutMapping("/{id}")
     // the @PathVariable defines the shoe id passed in the endpoint URL.
     // The @RequestBody defines the updated set of data needed to be passed as JSON to update an existing shoe's data.
-    public ResponseEntity<ShoeDTO> updateShoe(@PathVariable Long userId, @PathVariable Long id, @RequestBody ShoeDTO shoeDTO){
-        ShoeDTO updatedShoe = shoeService.updateShoe(userId, id, shoeDTO);
-        return ResponseEntity.ok(updatedShoe);
+    // With If-Match the write only happens if the shoe is still at that version, otherwise 412.
+    // Without it the new version isn't known, so there's no ETag either, a GET fetches it.
+    public ResponseEntity<ShoeDTO> updateShoe(@PathVariable Long userId, @PathVariable Long id, @RequestBody ShoeDTO shoeDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        ShoeDTO updatedShoe = shoeService.updateShoe(userId, id, shoeDTO, expectedVersion(ifMatch));
+        if (updatedShoe.getVersion() == null) {
+            return ResponseEntity.ok(updatedShoe);
+        }
+        return ResponseEntity.ok().eTag(shoeETag(updatedShoe.getVersion())).body(updatedShoe);
 
     }
 
+    // JSON Merge Patch, e.g. {"price": 89.99} changes only the price, a null value clears a field.
+    // If-Match works as for PUT.
+    @PatchMapping(path = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ShoeDTO> patchShoe(@PathVariable Long userId, @PathVariable Long id, @RequestBody Map<String, Object> patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        ShoeDTO patchedShoe = shoeService.patchShoe(userId, id, patch, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(shoeETag(patchedShoe.getVersion())).body(patchedShoe);
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<ShoeDTO> deleteShoe(@PathVariable Long userId, @PathVariable Long id){
-        shoeService.deleteShoe(userId, id);
+    public ResponseEntity<ShoeDTO> deleteShoe(@PathVariable Long userId, @PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        shoeService.deleteShoe(userId, id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
-}
+    // Batch endpoints for imports: the request body is a JSON array and the response has one result per item.
+    @PostMapping("/batch")
+    public ResponseEntity<List<ShoeBatchResultDTO>> createShoes(@PathVariable Long userId, @RequestBody List<ShoeDTO> shoeDTOs){
+        List<ShoeBatchResultDTO> results = shoeService.createShoes(userId, shoeDTOs);
+        return new ResponseEntity<>(results, HttpStatus.CREATED);
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<ShoeBatchResultDTO>> updateShoes(@PathVariable Long userId, @RequestBody List<ShoeDTO> shoeDTOs){
+        List<ShoeBatchResultDTO> results = shoeService.updateShoes(userId, shoeDTOs);
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<ShoeBatchResultDTO>> deleteShoes(@PathVariable Long userId, @RequestBody List<Long> ids){
+        List<ShoeBatchResultDTO> results = shoeService.deleteShoes(userId, ids);
+        return ResponseEntity.ok(results);
+    }
+
+    private static String shoeETag(Long version){
+        return "\"" + version + "\"";
+    }
+
+    private static String shoeListETag(List<ShoeDTO> shoes){
+        StringBuilder ids = new StringBuilder();
+        for (ShoeDTO shoe : shoes) {
+            ids.append(shoe.getId()).append(':').append(shoe.getVersion()).append(',');
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(ids.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
 
+    // If-Match: "<version>" becomes the expected version, no header or * means "whatever is there".
+    // Anything else (weak or foreign tags) can never match a shoe version, so the precondition fails.
+    private static Long expectedVersion(String ifMatch){
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through to the conflict below
+            }
+        }
+        throw new ShoeVersionConflictException("If-Match doesn't match the current shoe version: " + ifMatch);
+    }
+
+}
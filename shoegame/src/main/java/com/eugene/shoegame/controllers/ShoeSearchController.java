@@ -0,0 +1,31 @@
+package com.eugene.shoegame.controllers;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.services.ShoeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Marketplace search across every user's shoes, unlike ShoeController which is scoped to one user.
+@RestController
+@RequestMapping("/shoegame/shoes")
+public class ShoeSearchController {
+
+    private final ShoeService shoeService;
+
+    @Autowired
+    public ShoeSearchController(ShoeService shoeService){
+        this.shoeService = shoeService;
+    }
+
+    // e.g. /shoegame/shoes/search?q=air max black&page=0&size=20, best matches first.
+    @GetMapping("/search")
+    public ResponseEntity<List<ShoeDTO>> searchAllShoes(@RequestParam("q") String query,
+                                                        @RequestParam(required = false) Integer page,
+                                                        @RequestParam(required = false) Integer size){
+        List<ShoeDTO> shoes = shoeService.searchAllShoes(query, page, size);
+        return ResponseEntity.ok(shoes);
+    }
+}
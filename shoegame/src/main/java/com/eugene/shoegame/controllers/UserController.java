@@ -2,22 +2,31 @@ package com.eugene.shoegame.controllers;
 
 
 import com.eugene.shoegame.dto.UserDTO;
+import com.eugene.shoegame.dto.UserDeletionDTO;
+import com.eugene.shoegame.security.TokenService;
 import com.eugene.shoegame.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.Map;
+
 
 @RestController
 @RequestMapping("/shoegame/users")
 public class UserController {
 
     private final UserService userService;
+    private final TokenService tokenService;
 
     @Autowired
-    public UserController(UserService userService){
+    public UserController(UserService userService, TokenService tokenService){
         this.userService = userService;
+        this.tokenService = tokenService;
 
     }
 
@@ -27,10 +36,14 @@ public class UserController {
         return new ResponseEntity<>(registeredUser, HttpStatus.CREATED);
     }
 
+    // The access token for the shoe endpoints comes back in the Authorization header, the body is unchanged.
     @PostMapping("/login")
     public ResponseEntity<UserDTO> loginUser(@RequestBody UserDTO userDTO){
         UserDTO loggedUser = userService.loginUser(userDTO);
-        return ResponseEntity.ok(loggedUser);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.issueToken(loggedUser.getUserId()))
+                .header("X-Token-Expires-In", String.valueOf(tokenService.getTtlSeconds()))
+                .body(loggedUser);
     }
 
     // get user by specifying their id
@@ -48,10 +61,25 @@ public class UserController {
 
     }
 
+    // JSON Merge Patch, e.g. {"password": "..."} changes only the password.
+    @PatchMapping(path = "/{userId}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UserDTO> patchUser(@PathVariable Long userId, @RequestBody Map<String, Object> patch){
+        UserDTO patchedUser = userService.patchUser(userId, patch);
+        return ResponseEntity.ok(patchedUser);
+    }
+
+    // The user is gone right away, their shoes are removed in the background. Progress is at the Location.
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long userId) {
-        userService.deleteUser(userId);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<UserDeletionDTO> deleteUser(@PathVariable Long userId) {
+        UserDeletionDTO deletion = userService.deleteUser(userId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/shoegame/users/" + userId + "/deletion"))
+                .body(deletion);
+    }
+
+    @GetMapping("/{userId}/deletion")
+    public ResponseEntity<UserDeletionDTO> getUserDeletion(@PathVariable Long userId) {
+        return ResponseEntity.ok(userService.getUserDeletion(userId));
     }
 
 
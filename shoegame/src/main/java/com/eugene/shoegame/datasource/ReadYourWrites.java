@@ -0,0 +1,44 @@
+package com.eugene.shoegame.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+// Remembers which users wrote something recently, their reads go to the primary until the replicas have caught
+// up, so nobody sees their own change disappear. Also carries the per-request "primary only" decision to
+// ReplicaRoutingDataSource (set by ReadYourWritesFilter).
+// In memory per instance: with several instances the guarantee needs sticky sessions.
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(1_000_000)
+                .build();
+    }
+
+    public void recordWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public boolean wroteRecently(Long userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    public static void setPrimaryRequired(boolean primaryRequired) {
+        if (primaryRequired) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.eugene.shoegame.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Decides per request whether read-only transactions may use a replica. Writing requests (anything but
+// GET/HEAD) stay on the primary from start to end, and afterwards mark their {userId} as a recent writer, so
+// the user's next reads go to the primary as well for the read-your-writes window. Registered in DataSourceConfig.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Pattern USER_PATH = Pattern.compile("^/shoegame/users/(\\d+)(/.*)?$");
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Decoded and without ;matrix parameters, the way Spring MVC matches it: /users/%31 is user 1 as well.
+        Matcher matcher = USER_PATH.matcher(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        Long userId = matcher.matches() ? parseUserId(matcher.group(1)) : null;
+        boolean write = !request.getMethod().equals("GET") && !request.getMethod().equals("HEAD");
+
+        ReadYourWrites.setPrimaryRequired(write || (userId != null && readYourWrites.wroteRecently(userId)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.setPrimaryRequired(false);
+            // Counted from the end of the request, i.e. after the write committed.
+            if (write && userId != null) {
+                readYourWrites.recordWrite(userId);
+            }
+        }
+    }
+
+    // Too many digits for a Long is no user, the controller will answer that with a 400.
+    private static Long parseUserId(String userId) {
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.eugene.shoegame.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends connections for read-only transactions (@Transactional(readOnly = true), and Spring Data's own finders)
+// to the replicas round-robin, everything else to the primary. A replica is skipped while it is unhealthy: a
+// background check validates a connection of every replica each healthCheckInterval, and a replica that fails
+// to hand out a connection is marked unhealthy on the spot, that read then falls back to the primary.
+// Only works behind a LazyConnectionDataSourceProxy (see DataSourceConfig): the transaction has to be marked
+// read-only before the connection is chosen.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int healthCheckTimeoutSeconds;
+    private final ScheduledExecutorService healthChecker;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaDataSources,
+                                    Duration healthCheckInterval, Duration healthCheckTimeout, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.toSeconds());
+        for (HikariDataSource dataSource : replicaDataSources) {
+            Replica replica = new Replica(dataSource);
+            replicas.add(replica);
+            Gauge.builder("shoegame.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("pool", dataSource.getPoolName())
+                    .register(meterRegistry);
+        }
+        this.primaryConnections = Counter.builder("shoegame.datasource.connections").tag("target", "primary")
+                .register(meterRegistry);
+        this.replicaConnections = Counter.builder("shoegame.datasource.connections").tag("target", "replica")
+                .register(meterRegistry);
+
+        if (replicas.isEmpty()) {
+            healthChecker = null;
+        } else {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("replica-health-check").daemon().factory());
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadYourWrites.isPrimaryRequired() ? nextHealthyReplica() : null;
+        if (replica != null) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                markHealthy(replica, false);
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    // The replicas have their credentials configured per pool, so explicit ones can only mean the primary.
+    // Whether that works is up to the primary (Hikari throws SQLFeatureNotSupportedException).
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    // Round-robin over the healthy replicas, null when there is none.
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(healthCheckTimeoutSeconds);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            markHealthy(replica, healthy);
+        }
+    }
+
+    private void markHealthy(Replica replica, boolean healthy) {
+        if (replica.healthy != healthy) {
+            replica.healthy = healthy;
+            if (healthy) {
+                log.info("Read replica {} is back, routing reads to it again", replica.dataSource.getPoolName());
+            } else {
+                log.warn("Read replica {} is unavailable, its reads go to the primary", replica.dataSource.getPoolName());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        // Optimistic until the first check says otherwise.
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
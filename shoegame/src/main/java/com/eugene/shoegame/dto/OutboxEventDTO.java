@@ -0,0 +1,23 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// What an OutboxSink receives. id is unique and increasing, consumers can use it to drop redeliveries.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxEventDTO {
+
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+    private String payload;
+    private Instant createdAt;
+}
@@ -0,0 +1,20 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry per item of a batch request, in the same order as the request.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShoeBatchResultDTO {
+
+    private int index;
+    private Long id;
+    private String status;
+    private String message;
+    private ShoeDTO shoe;
+}
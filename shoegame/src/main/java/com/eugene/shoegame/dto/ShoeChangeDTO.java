@@ -0,0 +1,18 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry of the change feed, shoe is the new state (null for DELETED).
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShoeChangeDTO {
+
+    private ShoeChangeType type;
+    private Long shoeId;
+    private ShoeDTO shoe;
+}
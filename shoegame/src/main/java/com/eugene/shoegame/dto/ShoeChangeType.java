@@ -0,0 +1,7 @@
+package com.eugene.shoegame.dto;
+
+public enum ShoeChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -20,4 +20,5 @@ public class ShoeDTO {
     private String color;
     private Double price;
     private Long userId;
+    private Long version;
 }
@@ -0,0 +1,18 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of a GROUP BY over a user's shoes, key is the brand, color or size of the group.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShoeGroupStatsDTO {
+
+    private Object key;
+    private Long count;
+    private Double totalValue;
+}
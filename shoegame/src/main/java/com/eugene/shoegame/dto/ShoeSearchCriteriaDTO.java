@@ -0,0 +1,26 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Bound from the query string of GET /shoegame/users/{userId}/shoes/search, every field is optional.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShoeSearchCriteriaDTO {
+
+    private String brand;
+    private String color;
+    private Double minSize;
+    private Double maxSize;
+    private Double minPrice;
+    private Double maxPrice;
+    // One of id, name, brand, size, color, price. Defaults to id.
+    private String sort;
+    // asc or desc. Defaults to asc.
+    private String direction;
+    private Integer limit;
+}
@@ -0,0 +1,23 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ShoeStatsDTO {
+
+    private Long userId;
+    private Long count;
+    private Double totalValue;
+    private Double averagePrice;
+    private List<ShoeGroupStatsDTO> byBrand;
+    private List<ShoeGroupStatsDTO> byColor;
+    private List<ShoeGroupStatsDTO> bySize;
+}
@@ -0,0 +1,6 @@
+package com.eugene.shoegame.dto;
+
+public enum UserChangeType {
+    REGISTERED,
+    DELETED
+}
@@ -1,5 +1,6 @@
 package com.eugene.shoegame.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,5 +15,7 @@ public class UserDTO {
     private Long userId;
     private String username;
 
+    // Only ever read from requests (register, login, update). Responses never carry it, not even the hash.
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 }
@@ -0,0 +1,22 @@
+package com.eugene.shoegame.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserDeletionDTO {
+
+    private Long userId;
+    private String status;
+    private Long shoesDeleted;
+    private Instant requestedAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+}
@@ -0,0 +1,45 @@
+package com.eugene.shoegame.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// A domain event waiting to be delivered, inserted in the same transaction as the change it describes.
+// The OutboxRelay deletes the row once the event has been handed to the sink.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEventEntity {
+
+    // Pooled sequence ids like ShoeEntity's, a batch write appends one event per shoe and those INSERTs have
+    // to be batched too. The relay only uses the id for ordering (see the V4 migration).
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    // "shoe" or "user", together with aggregateId what the event is about.
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    // e.g. ShoeCreated, UserDeleted
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    // JSON
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,10 +1,13 @@
 package com.eugene.shoegame.entities;
 
+import com.eugene.shoegame.search.ShoeSearchIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 
 @Data
@@ -12,11 +15,27 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name="shoes")
+@DynamicUpdate // UPDATEs only carry the columns that actually changed, e.g. just price (and version) for a price PATCH.
+@EntityListeners(ShoeSearchIndexListener.class) // keeps the full-text search index in sync with shoe writes.
+@Table(name="shoes", indexes = {
+        // Backs keyset pagination and streaming of a user's shoes in id order.
+        @Index(name = "idx_shoes_user_id_id", columnList = "user_id, id"),
+        // Back the filters and sort orders of the shoe search.
+        @Index(name = "idx_shoes_user_id_name", columnList = "user_id, name"),
+        @Index(name = "idx_shoes_user_id_brand", columnList = "user_id, brand"),
+        @Index(name = "idx_shoes_user_id_color", columnList = "user_id, color"),
+        @Index(name = "idx_shoes_user_id_size", columnList = "user_id, size"),
+        @Index(name = "idx_shoes_user_id_price", columnList = "user_id, price")
+})
 public class ShoeEntity {
 
+    // Sequence ids with a pooled allocation of 50: Hibernate knows the ids before the INSERT,
+    // so it can send inserts as JDBC batches (IDENTITY forces one round trip per row).
+    // nextval = V hands out V-49..V, on a database with rows the sequence has to be at MAX(id) + 50 at least
+    // (see the V2 migration).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shoes_seq")
+    @SequenceGenerator(name = "shoes_seq", sequenceName = "shoes_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -25,6 +44,13 @@ public class ShoeEntity {
     private String color;
     private Double price;
 
+    // Optimistic lock, also served as the shoe's ETag. Bulk JPQL updates must bump it themselves.
+    // The column default fills in rows that existed before the column was added.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY) // where a shoe belongs to one user, and a user can have many shoes.
     @JoinColumn(name = "user_id", nullable = false) // @JoinColumn annotation specifies the foreign key column in the database.
     private UserEntity userEntity;
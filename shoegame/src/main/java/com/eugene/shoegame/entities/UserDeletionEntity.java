@@ -0,0 +1,41 @@
+package com.eugene.shoegame.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One row per requested user deletion. It outlives the user row on purpose: it is what the progress endpoint
+// reads, and unfinished rows are picked up again after a restart.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_deletions", indexes = @Index(name = "idx_user_deletions_status", columnList = "status"))
+public class UserDeletionEntity {
+
+    // Not a foreign key, the user row is deleted before this one is marked COMPLETED.
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UserDeletionStatus status;
+
+    @Column(name = "shoes_deleted", nullable = false)
+    private long shoesDeleted;
+
+    @Column(name = "requested_at", nullable = false)
+    private Instant requestedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
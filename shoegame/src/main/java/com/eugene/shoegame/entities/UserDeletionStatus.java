@@ -0,0 +1,10 @@
+package com.eugene.shoegame.entities;
+
+public enum UserDeletionStatus {
+    // Requested, the worker hasn't picked it up yet.
+    PENDING,
+    // Shoes are being deleted batch by batch.
+    IN_PROGRESS,
+    // All shoes and the user row are gone.
+    COMPLETED
+}
@@ -6,17 +6,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
+@DynamicUpdate // a password change doesn't rewrite the username and vice versa.
 @Table(name="users")
 public class UserEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
@@ -26,4 +32,21 @@ public class UserEntity {
     @Column(nullable = false)
     private String password;
 
+    // Optimistic lock, bulk JPQL updates in UserRepository bump it themselves.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Set when the user asks to be deleted. From then on the user is hidden from every lookup, the row itself
+    // is only removed once the UserDeletionWorker has purged all of their shoes.
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    public UserEntity(Long userId, String username, String password) {
+        this.userId = userId;
+        this.username = username;
+        this.password = password;
+    }
+
 }
@@ -0,0 +1,13 @@
+package com.eugene.shoegame.exceptions.shoeexceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// A batch request with more items than shoegame.batch.max-size, rejected before anything is written.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchTooLargeException extends RuntimeException{
+
+    public BatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,10 @@
 package com.eugene.shoegame.exceptions.shoeexceptions;
 
 
+import com.eugene.shoegame.exceptions.userexceptions.PasswordHashingUnavailableException;
+import com.eugene.shoegame.exceptions.userexceptions.UserNotFoundException;
+import com.eugene.shoegame.exceptions.userexceptions.UsernameAlreadyExistsException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -14,4 +18,61 @@ public class GlobalExceptionHandler {
         ApiErrorResponse error = new ApiErrorResponse("NOT_FOUND", ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler(InvalidSearchParameterException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidSearchParameterException(InvalidSearchParameterException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("BAD_REQUEST", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidPatchException(InvalidPatchException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("BAD_REQUEST", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<ApiErrorResponse> handleBatchTooLargeException(BatchTooLargeException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("BAD_REQUEST", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    // Another request changed the same row between our read and our write.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("CONFLICT", "The resource was modified by another request, please retry");
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ShoeVersionConflictException.class)
+    public ResponseEntity<ApiErrorResponse> handleShoeVersionConflictException(ShoeVersionConflictException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("PRECONDITION_FAILED", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Only with shoegame.query-count.fail-on-exceed=true, the request's transaction has been rolled back.
+    @ExceptionHandler(QueryBudgetExceededException.class)
+    public ResponseEntity<ApiErrorResponse> handleQueryBudgetExceededException(QueryBudgetExceededException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("INTERNAL_SERVER_ERROR", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ApiErrorResponse> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Unknown users, and users that asked to be deleted.
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<ApiErrorResponse> handleUserNotFoundException(UserNotFoundException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("NOT_FOUND", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(UsernameAlreadyExistsException.class)
+    public ResponseEntity<ApiErrorResponse> handleUsernameAlreadyExistsException(UsernameAlreadyExistsException ex) {
+        ApiErrorResponse error = new ApiErrorResponse("CONFLICT", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
 }
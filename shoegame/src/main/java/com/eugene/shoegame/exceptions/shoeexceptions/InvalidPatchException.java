@@ -0,0 +1,13 @@
+package com.eugene.shoegame.exceptions.shoeexceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// A merge patch with an unknown field or a value of the wrong type.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPatchException extends RuntimeException{
+
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.eugene.shoegame.exceptions.shoeexceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchParameterException extends RuntimeException{
+
+    public InvalidSearchParameterException(String message) {
+        super(message);
+    }
+}
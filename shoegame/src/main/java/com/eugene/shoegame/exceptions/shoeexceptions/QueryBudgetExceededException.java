@@ -0,0 +1,9 @@
+package com.eugene.shoegame.exceptions.shoeexceptions;
+
+// Thrown by QueryCounter when shoegame.query-count.fail-on-exceed is on and a request runs too many statements.
+public class QueryBudgetExceededException extends RuntimeException{
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.eugene.shoegame.exceptions.shoeexceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The If-Match version of a write doesn't match the shoe's current version anymore.
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class ShoeVersionConflictException extends RuntimeException{
+
+    public ShoeVersionConflictException(String message) {
+        super(message);
+    }
+}
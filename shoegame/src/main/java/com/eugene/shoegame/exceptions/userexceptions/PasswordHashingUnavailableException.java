@@ -0,0 +1,12 @@
+package com.eugene.shoegame.exceptions.userexceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when the password hashing pool is saturated, the client should retry later.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingUnavailableException extends RuntimeException{
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,79 @@
+package com.eugene.shoegame.loadtest;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.security.PasswordHasher;
+import com.eugene.shoegame.services.ShoeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fills the empty load-test database before the application reports ready, so the load driver never
+// hits a half-seeded closet.
+@Slf4j
+@Component
+@Profile("loadtest")
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestDataSeeder {
+
+    private static final String[] BRANDS = {"Nike", "Adidas", "Puma", "New Balance", "Asics", "Vans", "Converse"};
+    private static final String[] COLORS = {"Black", "White", "Red", "Blue", "Green", "Grey"};
+    private static final int CHUNK_SIZE = 500;
+
+    private final LoadTestProperties properties;
+    private final UserRepository userRepository;
+    private final ShoeService shoeService;
+    private final PasswordHasher passwordHasher;
+
+    @Autowired
+    public LoadTestDataSeeder(LoadTestProperties properties, UserRepository userRepository, ShoeService shoeService,
+                              PasswordHasher passwordHasher) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.shoeService = shoeService;
+        this.passwordHasher = passwordHasher;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void seed() {
+        long start = System.nanoTime();
+        // One BCrypt hash shared by all users, hashing each password separately would take minutes for large sets.
+        String passwordHash = passwordHasher.hash(properties.getPassword());
+
+        List<UserEntity> users = new ArrayList<>(properties.getUsers());
+        for (int i = 0; i < properties.getUsers(); i++) {
+            users.add(UserEntity.builder().username(LoadTestProperties.USERNAME_PREFIX + i).password(passwordHash).build());
+        }
+        List<UserEntity> savedUsers = userRepository.saveAll(users);
+
+        for (UserEntity user : savedUsers) {
+            List<ShoeDTO> shoes = new ArrayList<>(CHUNK_SIZE);
+            for (int i = 0; i < properties.getShoesPerUser(); i++) {
+                shoes.add(ShoeDTO.builder()
+                        .name("Shoe " + i)
+                        .brand(BRANDS[i % BRANDS.length])
+                        .size(6.0 + (i % 14) * 0.5)
+                        .color(COLORS[(i / BRANDS.length) % COLORS.length])
+                        .price(40.0 + (i * 7) % 260)
+                        .build());
+                if (shoes.size() == CHUNK_SIZE) {
+                    shoeService.createShoes(user.getUserId(), shoes);
+                    shoes.clear();
+                }
+            }
+            if (!shoes.isEmpty()) {
+                shoeService.createShoes(user.getUserId(), shoes);
+            }
+        }
+        log.info("Seeded {} users with {} shoes each in {} ms", properties.getUsers(), properties.getShoesPerUser(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
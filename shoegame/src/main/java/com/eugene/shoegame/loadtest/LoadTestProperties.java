@@ -0,0 +1,18 @@
+package com.eugene.shoegame.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Bound from shoegame.loadtest.* in application-loadtest.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.loadtest")
+public class LoadTestProperties {
+
+    public static final String USERNAME_PREFIX = "loadtest-user-";
+
+    // Synthetic data set: users x shoesPerUser shoes.
+    private int users = 100;
+    private int shoesPerUser = 50;
+    // Shared by every seeded user so the load driver can log in as any of them.
+    private String password = "loadtest-password";
+}
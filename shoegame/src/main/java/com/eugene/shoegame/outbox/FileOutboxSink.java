@@ -0,0 +1,57 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.OutboxEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Appends every event as one JSON line to shoegame.outbox.file and forces it to disk before returning, a batch
+// is only deleted from the outbox once it's on disk. Workers append under a lock, batches don't interleave.
+@Component
+@ConditionalOnProperty(name = "shoegame.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    @Autowired
+    public FileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(List<OutboxEventDTO> events) {
+        try {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            for (OutboxEventDTO event : events) {
+                lines.write(objectMapper.writeValueAsBytes(event));
+                lines.write('\n');
+            }
+            appendLock.lock();
+            try (FileChannel channel = FileChannel.open(properties.getFile(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.OutboxEventDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Keeps delivered events in memory, for tests.
+@Component
+@ConditionalOnProperty(name = "shoegame.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxEventDTO> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<OutboxEventDTO> events) {
+        this.events.addAll(events);
+    }
+
+    public List<OutboxEventDTO> getEvents() {
+        return List.copyOf(events);
+    }
+}
@@ -0,0 +1,23 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.OutboxEventDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Default sink until a real consumer exists: every event goes to the log.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shoegame.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEventDTO> events) {
+        for (OutboxEventDTO event : events) {
+            log.info("Outbox event {} {} {}:{} {}", event.getId(), event.getEventType(), event.getAggregateType(),
+                    event.getAggregateId(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.eugene.shoegame.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Bound from shoegame.outbox.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.outbox")
+public class OutboxProperties {
+
+    // Where events go: log, file or memory (tests). See the OutboxSink implementations.
+    private String sink = "log";
+    // JSON lines file of the file sink.
+    private Path file = Path.of("outbox-events.jsonl");
+    // false: events are still written to the outbox table, nothing delivers them (e.g. another instance does).
+    private boolean relayEnabled = true;
+    // Relay workers, each claims its own batches. Every worker holds a database connection while it delivers.
+    private int parallelism = 2;
+    private int batchSize = 100;
+    // How long a worker waits after finding less than a full batch.
+    private Duration pollInterval = Duration.ofMillis(500);
+    // How long a worker waits after the sink failed, the batch is then delivered again.
+    private Duration retryBackoff = Duration.ofSeconds(5);
+}
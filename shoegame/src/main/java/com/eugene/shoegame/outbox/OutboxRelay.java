@@ -0,0 +1,157 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.OutboxEventDTO;
+import com.eugene.shoegame.entities.OutboxEventEntity;
+import com.eugene.shoegame.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Drains the outbox table into the OutboxSink. Each worker, in one transaction: claims the oldest batch with
+// SKIP LOCKED (see OutboxEventRepository.claimBatch), hands it to the sink and deletes it. A failing sink rolls
+// the transaction back, the rows become claimable again and are retried after retryBackoff. Events are
+// delivered at least once, in id order within a batch. With parallelism > 1 two batches can overtake each
+// other, consumers that care about order should go by the shoe version in the payload.
+// Metrics: shoegame.outbox.delivered, shoegame.outbox.failures, shoegame.outbox.lag (created -> delivered)
+// and shoegame.outbox.oldest.age (seconds the oldest undelivered event has been waiting).
+@Slf4j
+@Component
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter delivered;
+    private final Counter failures;
+    private final Timer lag;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink outboxSink, OutboxProperties properties,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.delivered = Counter.builder("shoegame.outbox.delivered").register(meterRegistry);
+        this.failures = Counter.builder("shoegame.outbox.failures").register(meterRegistry);
+        this.lag = Timer.builder("shoegame.outbox.lag")
+                .description("Time from writing an event to delivering it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("shoegame.outbox.oldest.age", this, OutboxRelay::oldestAgeSeconds)
+                .description("Seconds the oldest undelivered event has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isRelayEnabled()) {
+            return;
+        }
+        running = true;
+        workers = Executors.newFixedThreadPool(properties.getParallelism(),
+                Thread.ofPlatform().name("outbox-relay-", 0).daemon().factory());
+        for (int i = 0; i < properties.getParallelism(); i++) {
+            workers.submit(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (relayBatch() < properties.getBatchSize()) {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Outbox delivery failed, retrying in {}", properties.getRetryBackoff(), e);
+                try {
+                    Thread.sleep(properties.getRetryBackoff().toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Delivers the next batch, returns its size.
+    int relayBatch() {
+        List<OutboxEventEntity> batch = transactionTemplate.execute(status -> {
+            List<OutboxEventEntity> events = outboxEventRepository.claimBatch(Limit.of(properties.getBatchSize()));
+            if (!events.isEmpty()) {
+                List<OutboxEventDTO> eventDTOs = new ArrayList<>(events.size());
+                for (OutboxEventEntity event : events) {
+                    eventDTOs.add(convertOutboxEventEntityToOutboxEventDTO(event));
+                }
+                outboxSink.publish(eventDTOs);
+                outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEventEntity::getId).toList());
+            }
+            return events;
+        });
+
+        Instant now = Instant.now();
+        for (OutboxEventEntity event : batch) {
+            lag.record(Duration.between(event.getCreatedAt(), now));
+        }
+        delivered.increment(batch.size());
+        return batch.size();
+    }
+
+    private double oldestAgeSeconds() {
+        try {
+            return outboxEventRepository.findOldestCreatedAt()
+                    .map(createdAt -> Duration.between(createdAt, Instant.now()).toMillis() / 1000.0)
+                    .orElse(0.0);
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private OutboxEventDTO convertOutboxEventEntityToOutboxEventDTO(OutboxEventEntity event) {
+        return OutboxEventDTO.builder()
+                .id(event.getId())
+                .aggregateType(event.getAggregateType())
+                .aggregateId(event.getAggregateId())
+                .eventType(event.getEventType())
+                .payload(event.getPayload())
+                .createdAt(event.getCreatedAt())
+                .build();
+    }
+}
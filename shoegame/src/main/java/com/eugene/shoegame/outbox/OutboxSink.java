@@ -0,0 +1,14 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.OutboxEventDTO;
+
+import java.util.List;
+
+// Where the OutboxRelay delivers events to (a message broker, an HTTP endpoint, ...). Picked with
+// shoegame.outbox.sink. Delivery is at least once: when publish throws, or the relay dies before it commits,
+// the same events come again, so publish has to be fine with seeing an event twice.
+public interface OutboxSink {
+
+    // Returns normally only once all events are safely delivered.
+    void publish(List<OutboxEventDTO> events);
+}
@@ -0,0 +1,78 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.ShoeChangeDTO;
+import com.eugene.shoegame.entities.OutboxEventEntity;
+import com.eugene.shoegame.repositories.OutboxEventRepository;
+import com.eugene.shoegame.services.ShoeChangedEvent;
+import com.eugene.shoegame.services.UserChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Turns the services' change events into outbox rows. Plain @EventListeners run synchronously on the publishing
+// thread, so the INSERT is part of the same transaction as the change: both commit or neither does.
+// MANDATORY makes a write path that forgot its transaction fail loudly instead of emitting events on its own.
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // ShoeCreated/ShoeUpdated carry the new state of the shoe, ShoeDeleted only the ids.
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onShoeChanged(ShoeChangedEvent event) {
+        ShoeChangeDTO change = event.getChange();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", event.getUserId());
+        payload.put("shoeId", change.getShoeId());
+        if (change.getShoe() != null) {
+            payload.put("shoe", change.getShoe());
+        }
+        append("shoe", change.getShoeId(), "Shoe" + capitalized(change.getType().name()), payload);
+    }
+
+    // UserDeleted also stands for all of the user's shoes, they are purged in the background without
+    // events of their own.
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUserChanged(UserChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", event.getUserId());
+        payload.put("username", event.getUsername());
+        append("user", event.getUserId(), "User" + capitalized(event.getType().name()), payload);
+    }
+
+    private void append(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        try {
+            outboxEventRepository.save(OutboxEventEntity.builder()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event", e);
+        }
+    }
+
+    // CREATED -> Created
+    private static String capitalized(String name) {
+        return name.charAt(0) + name.substring(1).toLowerCase();
+    }
+}
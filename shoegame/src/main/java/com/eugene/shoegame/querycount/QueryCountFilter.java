@@ -0,0 +1,70 @@
+package com.eugene.shoegame.querycount;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Opens a QueryCounter scope around each request, publishes the count as the shoegame.http.queries summary
+// (tagged like http.server.requests) and logs requests that went over budget or look like an N+1.
+// The count is also left in the QUERY_COUNT request attribute, that's what the tests assert on.
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT = "queryCount";
+    public static final String QUERIES_METRIC = "shoegame.http.queries";
+
+    private final QueryCounter queryCounter;
+    private final QueryCountProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountFilter(QueryCounter queryCounter, QueryCountProperties properties, MeterRegistry meterRegistry) {
+        this.queryCounter = queryCounter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (QueryCounter.Scope scope = queryCounter.open(properties.getBudget(), properties.isFailOnExceed())) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                report(request, scope);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCounter.Scope scope) {
+        request.setAttribute(QUERY_COUNT, scope.getCount());
+
+        // The route template, not the raw URI, so ids don't blow up the number of series.
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder(QUERIES_METRIC)
+                .description("SQL statements run per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.getCount());
+
+        if (scope.isOverBudget()) {
+            log.warn("{} {} ran {} SQL statements, budget is {}", request.getMethod(), uri, scope.getCount(),
+                    properties.getBudget());
+        }
+        Map.Entry<String, Integer> repeated = scope.mostRepeatedStatement(properties.getRepeatedStatementThreshold());
+        if (repeated != null) {
+            log.warn("Possible N+1 in {} {}: the same statement ran {} times: {}", request.getMethod(), uri,
+                    repeated.getValue(), repeated.getKey());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.eugene.shoegame.querycount;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Bound from shoegame.query-count.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.query-count")
+public class QueryCountProperties {
+
+    private boolean enabled = true;
+    // SQL statements one request may run before it is logged (or failed, see below).
+    private int budget = 20;
+    // false: only log requests over budget. true: the statement that goes over budget throws, handy in dev/CI.
+    private boolean failOnExceed = false;
+    // The same SQL string running this many times in one request is reported as a likely N+1.
+    private int repeatedStatementThreshold = 5;
+}
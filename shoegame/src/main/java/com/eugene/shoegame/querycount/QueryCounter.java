@@ -0,0 +1,85 @@
+package com.eugene.shoegame.querycount;
+
+import com.eugene.shoegame.exceptions.shoeexceptions.QueryBudgetExceededException;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Hibernate hands every SQL statement it prepares to this inspector (registered in QueryCountConfig), we count
+// them for whatever scope is open on the current thread. A request runs on one thread from start to finish,
+// so a thread local is enough to make the count per request. Statements outside a scope (startup, the
+// background user deletion) are not counted.
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    // Starts counting on this thread until the returned scope is closed. Scopes nest, closing one puts the
+    // outer scope back.
+    public Scope open(int budget, boolean failOnExceed) {
+        Scope scope = new Scope(budget, failOnExceed, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final int budget;
+        private final boolean failOnExceed;
+        private final Scope outer;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private int count;
+
+        private Scope(int budget, boolean failOnExceed, Scope outer) {
+            this.budget = budget;
+            this.failOnExceed = failOnExceed;
+            this.outer = outer;
+        }
+
+        private void record(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+            if (outer != null) {
+                outer.record(sql);
+            }
+            if (failOnExceed && count > budget) {
+                throw new QueryBudgetExceededException(
+                        "Request ran more than " + budget + " SQL statements, the last one was: " + sql);
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean isOverBudget() {
+            return count > budget;
+        }
+
+        // The most frequent statement if it ran at least threshold times, null otherwise.
+        public Map.Entry<String, Integer> mostRepeatedStatement(int threshold) {
+            return statements.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= threshold)
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(null);
+        }
+
+        @Override
+        public void close() {
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.eugene.shoegame.ratelimit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Concurrency limit in front of the database: caps the requests in flight and turns new ones away while the
+// connection pool already has a queue. Shedding early keeps latency flat for the requests we do accept.
+public class AdmissionController {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxConcurrentRequests;
+    private final int maxPendingConnections;
+    private final HikariDataSource dataSource;
+
+    public AdmissionController(RateLimitProperties properties, HikariDataSource dataSource) {
+        this.maxConcurrentRequests = properties.getMaxConcurrentRequests();
+        this.maxPendingConnections = properties.getMaxPendingConnections();
+        this.dataSource = dataSource;
+    }
+
+    // Every true must be paired with a leave().
+    public boolean tryEnter() {
+        if (pendingConnections() > maxPendingConnections) {
+            return false;
+        }
+        if (inFlight.incrementAndGet() > maxConcurrentRequests) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void leave() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int pendingConnections() {
+        // Null until the pool has started.
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.eugene.shoegame.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Requests are limited per class rather than per endpoint: reads are cheap and frequent, writes cost more,
+// register/login are expensive on purpose (BCrypt) and the usual target of scripted abuse.
+public enum EndpointClass {
+    READ,
+    WRITE,
+    AUTH;
+
+    // The path has to be decoded and free of ;matrix parameters (see RateLimitFilter).
+    public static EndpointClass of(HttpServletRequest request, String path) {
+        if (path.equals("/shoegame/users/login") || path.equals("/shoegame/users/register")) {
+            return AUTH;
+        }
+        String method = request.getMethod();
+        return method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS") ? READ : WRITE;
+    }
+}
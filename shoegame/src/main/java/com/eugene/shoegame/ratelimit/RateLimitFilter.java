@@ -0,0 +1,105 @@
+package com.eugene.shoegame.ratelimit;
+
+import com.eugene.shoegame.exceptions.shoeexceptions.ApiErrorResponse;
+import com.eugene.shoegame.security.TokenAuthenticationFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Runs right after the token filter (registered in RateLimitConfig): the per-user and per-IP token buckets
+// answer 429 with Retry-After, the AdmissionController answers 503. Rejections are counted in
+// shoegame.ratelimit.rejections (tags reason and endpoint).
+// The per-user bucket belongs to the user of a valid access token, never to the {userId} in the path: anyone
+// can put any id in a path, so keying on it would let them drain someone else's bucket.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String REJECTIONS_METRIC = "shoegame.ratelimit.rejections";
+
+    private final RateLimiter rateLimiter;
+    private final AdmissionController admissionController;
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimiter rateLimiter, AdmissionController admissionController,
+                           RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.admissionController = admissionController;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Decoded and without ;matrix parameters, the way Spring MVC matches it: /users/login;x is still a login.
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        EndpointClass endpointClass = EndpointClass.of(request, path);
+
+        Object userId = request.getAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER_ID);
+        if (userId != null
+                && limited("user", endpointClass, userId.toString(), properties.getPerUser().get(endpointClass), response)) {
+            return;
+        }
+        if (limited("ip", endpointClass, request.getRemoteAddr(), properties.getPerIp().get(endpointClass), response)) {
+            return;
+        }
+
+        if (!admissionController.tryEnter()) {
+            rejected("overload", endpointClass);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Server is overloaded, please retry shortly");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admissionController.leave();
+        }
+    }
+
+    // Takes a token from the key's bucket, answers 429 and returns true when there is none.
+    private boolean limited(String scope, EndpointClass endpointClass, String key, RateLimitProperties.Limit limit,
+                            HttpServletResponse response) throws IOException {
+        if (limit == null) {
+            return false;
+        }
+        long waitNanos = rateLimiter.tryAcquire(scope + ":" + endpointClass + ":" + key, limit);
+        if (waitNanos == 0) {
+            return false;
+        }
+        rejected(scope, endpointClass);
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        reject(response, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry in " + retryAfterSeconds + "s");
+        return true;
+    }
+
+    private void rejected(String reason, EndpointClass endpointClass) {
+        Counter.builder(REJECTIONS_METRIC)
+                .description("Requests turned away by the rate limiter or admission control")
+                .tag("reason", reason)
+                .tag("endpoint", endpointClass.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrorResponse(status.name(), message));
+    }
+}
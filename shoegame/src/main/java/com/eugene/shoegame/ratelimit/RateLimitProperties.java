@@ -0,0 +1,35 @@
+package com.eugene.shoegame.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Bound from shoegame.rate-limit.* in application.properties. An endpoint class without a limit isn't limited.
+@Data
+@ConfigurationProperties(prefix = "shoegame.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Keyed by the user of the request's access token, requests without a valid one only have the per-IP limit.
+    private Map<EndpointClass, Limit> perUser = new EnumMap<>(EndpointClass.class);
+    // Keyed by the client address (set server.forward-headers-strategy behind a load balancer).
+    private Map<EndpointClass, Limit> perIp = new EnumMap<>(EndpointClass.class);
+    // Buckets not used for this long are dropped, a dropped bucket comes back full.
+    private Duration bucketIdleTimeout = Duration.ofMinutes(10);
+    private long maxBuckets = 100_000;
+
+    // Admission control: requests beyond this many in flight get a 503.
+    private int maxConcurrentRequests = 100;
+    // 503 as well while more than this many threads are already waiting for a database connection, taking
+    // more requests then only makes every request wait longer for the pool.
+    private int maxPendingConnections = 20;
+
+    @Data
+    public static class Limit {
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
@@ -0,0 +1,24 @@
+package com.eugene.shoegame.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// One TokenBucket per key ("user:READ:42", "ip:AUTH:10.0.0.1", ...). The buckets live in a bounded Caffeine
+// cache so clients that went away don't pile up.
+public class RateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getBucketIdleTimeout())
+                .maximumSize(properties.getMaxBuckets())
+                .build();
+    }
+
+    // 0 when the request may go ahead, otherwise nanoseconds until the key gets its next token.
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        return buckets.get(key, k -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), System::nanoTime))
+                .tryAcquire();
+    }
+}
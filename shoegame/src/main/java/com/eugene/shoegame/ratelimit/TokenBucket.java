@@ -0,0 +1,42 @@
+package com.eugene.shoegame.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Lock-free token bucket. Instead of a token count plus a last-refill time it keeps one number, the moment the
+// bucket will be full again (the "generic cell rate algorithm" form of a token bucket), so taking a token is a
+// single compare-and-set on an AtomicLong and there is no refill thread.
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, double refillPerSecond, LongSupplier clock) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity must be >= 1 and refillPerSecond > 0");
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = nanosPerToken * capacity;
+        this.clock = clock;
+        // Starts full.
+        this.fullAt = new AtomicLong(clock.getAsLong());
+    }
+
+    // Takes one token. Returns 0 when it got one, otherwise how many nanoseconds until the next token.
+    public long tryAcquire() {
+        while (true) {
+            long now = clock.getAsLong();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
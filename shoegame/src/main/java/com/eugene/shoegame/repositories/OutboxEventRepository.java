@@ -0,0 +1,33 @@
+package com.eugene.shoegame.repositories;
+
+import com.eugene.shoegame.entities.OutboxEventEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.cfg.AvailableSettings.JAKARTA_LOCK_TIMEOUT;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    // The oldest undelivered events, locked for the rest of the transaction. A lock timeout of -2 is Hibernate's
+    // SKIP LOCKED: rows another relay worker already holds are skipped instead of waited for, so parallel
+    // workers each claim a different batch. (Databases without SKIP LOCKED, like H2, fall back to FOR UPDATE.)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("select o from OutboxEventEntity o order by o.id")
+    List<OutboxEventEntity> claimBatch(Limit limit);
+
+    // Ids follow insertion order, so this is a primary key lookup.
+    @Query("select o.createdAt from OutboxEventEntity o where o.id = (select min(p.id) from OutboxEventEntity p)")
+    Optional<Instant> findOldestCreatedAt();
+}
@@ -1,17 +1,110 @@
 package com.eugene.shoegame.repositories;
 
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeGroupStatsDTO;
 import com.eugene.shoegame.entities.ShoeEntity;
 import com.eugene.shoegame.entities.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 
 @Repository
-public interface ShoeRepository extends JpaRepository<ShoeEntity, Long> {
+public interface ShoeRepository extends JpaRepository<ShoeEntity, Long>, JpaSpecificationExecutor<ShoeEntity> {
     Optional<ShoeEntity> findByIdAndUserEntity_UserId(Long id, Long userId);
     List<ShoeEntity> findAllByUserEntity_UserId(Long userId);
 
+    // Shoes to be changed, only while their owner hasn't been deleted.
+    Optional<ShoeEntity> findByIdAndUserEntity_UserIdAndUserEntity_DeletedAtIsNull(Long id, Long userId);
+    List<ShoeEntity> findAllByIdInAndUserEntity_UserIdAndUserEntity_DeletedAtIsNull(Collection<Long> ids, Long userId);
+
+    @Query("select s.id from ShoeEntity s where s.id in :ids and s.userEntity.userId = :userId")
+    List<Long> findIdsByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // The next chunk of a user's shoe ids in id order, walks the (user_id, id) index.
+    @Query("select s.id from ShoeEntity s where s.userEntity.userId = :userId order by s.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Limit limit);
+
+    // Just the version of a shoe, enough to answer conditional requests without loading the row.
+    @Query("select s.version from ShoeEntity s where s.id = :id and s.userEntity.userId = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    /* The queries below select straight into ShoeDTO, so read paths never create managed entities
+       or touch the lazy UserEntity proxy. s.userEntity.userId is read from the user_id column, no join. */
+
+    @Query("select new com.eugene.shoegame.dto.ShoeDTO(s.id, s.name, s.brand, s.size, s.color, s.price, s.userEntity.userId, s.version) " +
+            "from ShoeEntity s where s.id = :id and s.userEntity.userId = :userId")
+    Optional<ShoeDTO> findShoeDTOByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("select new com.eugene.shoegame.dto.ShoeDTO(s.id, s.name, s.brand, s.size, s.color, s.price, s.userEntity.userId, s.version) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId order by s.id")
+    List<ShoeDTO> findAllShoeDTOsByUserId(@Param("userId") Long userId);
+
+    // Keyset (cursor) pagination: walks the (user_id, id) index instead of using OFFSET,
+    // so every page costs the same no matter how deep into the closet the client is.
+    @Query("select new com.eugene.shoegame.dto.ShoeDTO(s.id, s.name, s.brand, s.size, s.color, s.price, s.userEntity.userId, s.version) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId and s.id > :afterId order by s.id")
+    List<ShoeDTO> findShoeDTOsByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+
+    // Streams rows out of an open cursor, the caller must be inside a transaction and close the stream.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.eugene.shoegame.dto.ShoeDTO(s.id, s.name, s.brand, s.size, s.color, s.price, s.userEntity.userId, s.version) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId order by s.id")
+    Stream<ShoeDTO> streamShoeDTOsByUserId(@Param("userId") Long userId);
+
+    // Every shoe of every user that isn't deleted, used to (re)build the in-memory search index.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.eugene.shoegame.dto.ShoeDTO(s.id, s.name, s.brand, s.size, s.color, s.price, s.userEntity.userId, s.version) " +
+            "from ShoeEntity s where s.userEntity.deletedAt is null order by s.id")
+    Stream<ShoeDTO> streamAllShoeDTOs();
+
+    /* Ownership-scoped writes in a single statement. They return the number of affected rows,
+       0 means the shoe doesn't exist, belongs to another (or a deleted) user or (with a non-null version) was changed since.
+       Deleting stays allowed for deleted users, the purge removes those shoes anyway. */
+
+    @Modifying
+    @Query("update ShoeEntity s set s.name = :name, s.brand = :brand, s.size = :size, s.color = :color, s.price = :price, " +
+            "s.version = s.version + 1 " +
+            "where s.id = :id and s.userEntity.userId = :userId and (:version is null or s.version = :version) " +
+            "and exists (select u.userId from UserEntity u where u.userId = :userId and u.deletedAt is null)")
+    int updateByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId, @Param("version") Long version,
+                            @Param("name") String name, @Param("brand") String brand, @Param("size") Double size,
+                            @Param("color") String color, @Param("price") Double price);
+
+    @Modifying
+    @Query("delete from ShoeEntity s where s.id = :id and s.userEntity.userId = :userId and (:version is null or s.version = :version)")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId, @Param("version") Long version);
+
+    /* Closet statistics, aggregated in the database so only a handful of rows cross the wire.
+       The totals query returns no row when the user has no shoes. */
+
+    @Query("select new com.eugene.shoegame.dto.ShoeGroupStatsDTO(s.userEntity.userId, count(s), coalesce(sum(s.price), 0.0)) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId group by s.userEntity.userId")
+    Optional<ShoeGroupStatsDTO> findTotalsByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.eugene.shoegame.dto.ShoeGroupStatsDTO(s.brand, count(s), coalesce(sum(s.price), 0.0)) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId group by s.brand order by count(s) desc, s.brand")
+    List<ShoeGroupStatsDTO> findBrandStatsByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.eugene.shoegame.dto.ShoeGroupStatsDTO(s.color, count(s), coalesce(sum(s.price), 0.0)) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId group by s.color order by count(s) desc, s.color")
+    List<ShoeGroupStatsDTO> findColorStatsByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.eugene.shoegame.dto.ShoeGroupStatsDTO(s.size, count(s), coalesce(sum(s.price), 0.0)) " +
+            "from ShoeEntity s where s.userEntity.userId = :userId group by s.size order by s.size")
+    List<ShoeGroupStatsDTO> findSizeStatsByUserId(@Param("userId") Long userId);
+
 }
@@ -0,0 +1,48 @@
+package com.eugene.shoegame.repositories;
+
+import com.eugene.shoegame.dto.ShoeSearchCriteriaDTO;
+import com.eugene.shoegame.entities.ShoeEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+// Builds the WHERE clause of a shoe search from the criteria that were actually supplied.
+// Every search is scoped to one user, so the composite (user_id, ...) indexes on ShoeEntity apply.
+public final class ShoeSpecifications {
+
+    private ShoeSpecifications() {
+    }
+
+    public static Specification<ShoeEntity> matching(Long userId, ShoeSearchCriteriaDTO criteria) {
+        return Specification.where(ownedBy(userId))
+                .and(equalTo("brand", criteria.getBrand()))
+                .and(equalTo("color", criteria.getColor()))
+                .and(between("size", criteria.getMinSize(), criteria.getMaxSize()))
+                .and(between("price", criteria.getMinPrice(), criteria.getMaxPrice()));
+    }
+
+    public static Specification<ShoeEntity> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("userEntity").get("userId"), userId);
+    }
+
+    // A null value means "no filter", Specification.and() skips null specifications.
+    private static Specification<ShoeEntity> equalTo(String attribute, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private static Specification<ShoeEntity> between(String attribute, Double min, Double max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.get(attribute), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), min);
+            }
+            return cb.between(root.get(attribute), min, max);
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.eugene.shoegame.repositories;
+
+import com.eugene.shoegame.entities.UserDeletionEntity;
+import com.eugene.shoegame.entities.UserDeletionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UserDeletionRepository extends JpaRepository<UserDeletionEntity, Long> {
+
+    // Deletions that still have work left, used to resume them after a restart.
+    @Query("select d.userId from UserDeletionEntity d where d.status <> com.eugene.shoegame.entities.UserDeletionStatus.COMPLETED order by d.requestedAt")
+    List<Long> findUnfinishedUserIds();
+
+    // Records a deleted batch in the same transaction as the DELETE, so the count never drifts from what is gone.
+    @Modifying
+    @Query("update UserDeletionEntity d set d.status = :status, d.shoesDeleted = d.shoesDeleted + :deleted, d.updatedAt = :now where d.userId = :userId")
+    int addProgress(@Param("userId") Long userId, @Param("status") UserDeletionStatus status, @Param("deleted") long deleted, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update UserDeletionEntity d set d.status = com.eugene.shoegame.entities.UserDeletionStatus.COMPLETED, d.updatedAt = :now, d.completedAt = :now where d.userId = :userId")
+    int markCompleted(@Param("userId") Long userId, @Param("now") Instant now);
+}
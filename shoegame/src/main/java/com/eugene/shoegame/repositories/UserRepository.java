@@ -2,14 +2,41 @@ package com.eugene.shoegame.repositories;
 
 import com.eugene.shoegame.dto.UserDTO;
 import com.eugene.shoegame.entities.UserEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
     /* The Optional class helps avoid NullPointerExceptions in case a user is not found.*/
-    Optional<UserEntity> findByUsername(String username);
-    boolean existsByUsername(String username);
+    // Lookups used by the service, users that asked to be deleted are treated as gone.
+    Optional<UserEntity> findByUserIdAndDeletedAtIsNull(Long userId);
+    Optional<UserEntity> findByUsernameAndDeletedAtIsNull(String username);
+
+    // Reads the user with a shared row lock (FOR SHARE on Postgres) that holds until the transaction ends.
+    // markDeleted has to wait for it, and a lock taken after markDeleted committed no longer finds the user.
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select u from UserEntity u where u.userId = :userId and u.deletedAt is null")
+    Optional<UserEntity> lockActiveUser(@Param("userId") Long userId);
+
+    // Flags the user as deleted, the row lock makes concurrent delete requests for the same user see 0 rows.
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.deletedAt = :deletedAt, u.version = u.version + 1 where u.userId = :userId and u.deletedAt is null")
+    int markDeleted(@Param("userId") Long userId, @Param("deletedAt") Instant deletedAt);
+
+    // Renames a user (and optionally changes the password) in one statement, a null password keeps the old one.
+    // A taken username surfaces as a unique constraint violation, returns the number of updated rows.
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.username = :username, u.password = coalesce(:password, u.password), u.version = u.version + 1 where u.userId = :userId and u.deletedAt is null")
+    int updateUsernameAndPassword(@Param("userId") Long userId, @Param("username") String username, @Param("password") String password);
 }
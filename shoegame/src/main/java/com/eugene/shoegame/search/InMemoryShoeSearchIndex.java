@@ -0,0 +1,179 @@
+package com.eugene.shoegame.search;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.UserChangeType;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.services.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// In-process inverted index for H2/test setups where there is no tsvector support.
+// Every token points at the shoes containing it together with a weight (name 3, brand 2, color 1),
+// a query matches shoes that contain all of its tokens and ranks them by the summed weights.
+@Component
+@ConditionalOnProperty(name = "shoegame.search.engine", havingValue = "memory")
+public class InMemoryShoeSearchIndex implements ShoeSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int COLOR_WEIGHT = 1;
+
+    private final ShoeRepository shoeRepository;
+
+    // token -> (shoe id -> weight)
+    private final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, ShoeDTO> documents = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InMemoryShoeSearchIndex(ShoeRepository shoeRepository) {
+        this.shoeRepository = shoeRepository;
+    }
+
+    // The index only lives in memory, so it is rebuilt from the database on every start.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        try (Stream<ShoeDTO> shoeDTOs = shoeRepository.streamAllShoeDTOs()) {
+            shoeDTOs.forEach(this::index);
+        }
+    }
+
+    @Override
+    public List<ShoeDTO> search(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        // Start from the rarest token so the candidate set is as small as possible.
+        tokens.sort(Comparator.comparingInt(token -> postings.getOrDefault(token, Map.of()).size()));
+        Map<Long, Integer> scores = new HashMap<>(postings.getOrDefault(tokens.get(0), Map.of()));
+        for (String token : tokens.subList(1, tokens.size())) {
+            Map<Long, Integer> tokenPostings = postings.getOrDefault(token, Map.of());
+            scores.keySet().retainAll(tokenPostings.keySet());
+            scores.replaceAll((id, score) -> score + tokenPostings.getOrDefault(id, 0));
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .skip((long) page * size)
+                .limit(size)
+                .map(entry -> documents.get(entry.getKey()))
+                .filter(shoeDTO -> shoeDTO != null)
+                .toList();
+    }
+
+    @Override
+    public void onShoeSaved(ShoeDTO shoeDTO) {
+        afterCommit(() -> index(shoeDTO));
+    }
+
+    @Override
+    public void onShoeDeleted(Long shoeId) {
+        afterCommit(() -> remove(shoeId));
+    }
+
+    // A deleted user's shoes leave the results right away, not only once the purge has removed them.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangeType.DELETED) {
+            documents.values().stream()
+                    .filter(shoeDTO -> event.getUserId().equals(shoeDTO.getUserId()))
+                    .map(ShoeDTO::getId)
+                    .toList()
+                    .forEach(this::remove);
+        }
+    }
+
+    void index(ShoeDTO shoeDTO) {
+        // compute() serialises writers of the same shoe, so old and new tokens never get mixed up.
+        documents.compute(shoeDTO.getId(), (id, previous) -> {
+            if (previous != null) {
+                removePostings(previous);
+            }
+            addPostings(shoeDTO);
+            return shoeDTO;
+        });
+    }
+
+    void remove(Long shoeId) {
+        documents.computeIfPresent(shoeId, (id, previous) -> {
+            removePostings(previous);
+            return null;
+        });
+    }
+
+    private void addPostings(ShoeDTO shoeDTO) {
+        for (Map.Entry<String, Integer> entry : weightedTokens(shoeDTO).entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), token -> new ConcurrentHashMap<>())
+                    .put(shoeDTO.getId(), entry.getValue());
+        }
+    }
+
+    private void removePostings(ShoeDTO shoeDTO) {
+        for (String token : weightedTokens(shoeDTO).keySet()) {
+            postings.computeIfPresent(token, (key, ids) -> {
+                ids.remove(shoeDTO.getId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private Map<String, Integer> weightedTokens(ShoeDTO shoeDTO) {
+        Map<String, Integer> weights = new HashMap<>();
+        addWeights(weights, shoeDTO.getName(), NAME_WEIGHT);
+        addWeights(weights, shoeDTO.getBrand(), BRAND_WEIGHT);
+        addWeights(weights, shoeDTO.getColor(), COLOR_WEIGHT);
+        return weights;
+    }
+
+    private void addWeights(Map<String, Integer> weights, String text, int weight) {
+        for (String token : Set.copyOf(tokenize(text))) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !tokens.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Writes only become searchable once their transaction commits, a rollback leaves the index untouched.
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
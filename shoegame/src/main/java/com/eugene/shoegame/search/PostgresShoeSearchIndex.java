@@ -0,0 +1,77 @@
+package com.eugene.shoegame.search;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Production search: a weighted tsvector over name (A), brand (B) and color (C) with a GIN expression index,
+// created by the V3 migration. Postgres keeps the index up to date itself, so the write callbacks do nothing.
+@Component
+@EnableConfigurationProperties(ShoeSearchProperties.class)
+@ConditionalOnProperty(name = "shoegame.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresShoeSearchIndex implements ShoeSearchIndex {
+
+    // The WHERE clause must use exactly the indexed expression, otherwise Postgres can't use the GIN index.
+    static final String DOCUMENT = "(setweight(to_tsvector('simple', coalesce(name, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(brand, '')), 'B') || " +
+            "setweight(to_tsvector('simple', coalesce(color, '')), 'C'))";
+
+    // Shoes of users that asked to be deleted are excluded right away, not only once the purge has removed them.
+    private static final String MATCHES_SQL =
+            "SELECT s.id, s.name, s.brand, s.size, s.color, s.price, s.user_id, s.version, " +
+            "ts_rank(" + DOCUMENT + ", query) AS rank " +
+            "FROM shoes s JOIN users u ON u.user_id = s.user_id AND u.deleted_at IS NULL, " +
+            "plainto_tsquery('simple', ?) query " +
+            "WHERE " + DOCUMENT + " @@ query";
+
+    // Ranks every match, so the first page really holds the best matches.
+    static final String SEARCH_SQL = "SELECT id, name, brand, size, color, price, user_id, version FROM (" +
+            MATCHES_SQL + ") matches ORDER BY rank DESC, id LIMIT ? OFFSET ?";
+
+    // With max-ranked-matches set: the inner LIMIT has no ORDER BY (there is nothing cheaper than ts_rank to
+    // order by), so above the cap Postgres ranks an arbitrary sample of the matches, not the best ones.
+    static final String SAMPLED_SEARCH_SQL = "SELECT id, name, brand, size, color, price, user_id, version FROM (" +
+            MATCHES_SQL + " LIMIT ?) matches ORDER BY rank DESC, id LIMIT ? OFFSET ?";
+
+    private static final RowMapper<ShoeDTO> SHOE_ROW_MAPPER = (rs, rowNum) -> ShoeDTO.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .brand(rs.getString("brand"))
+            .size(rs.getObject("size", Double.class))
+            .color(rs.getString("color"))
+            .price(rs.getObject("price", Double.class))
+            .userId(rs.getLong("user_id"))
+            .version(rs.getLong("version"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxRankedMatches;
+
+    @Autowired
+    public PostgresShoeSearchIndex(JdbcTemplate jdbcTemplate, ShoeSearchProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRankedMatches = properties.getMaxRankedMatches();
+    }
+
+    @Override
+    public List<ShoeDTO> search(String query, int page, int size) {
+        if (maxRankedMatches > 0) {
+            return jdbcTemplate.query(SAMPLED_SEARCH_SQL, SHOE_ROW_MAPPER, query, maxRankedMatches, size, (long) page * size);
+        }
+        return jdbcTemplate.query(SEARCH_SQL, SHOE_ROW_MAPPER, query, size, (long) page * size);
+    }
+
+    @Override
+    public void onShoeSaved(ShoeDTO shoeDTO) {
+    }
+
+    @Override
+    public void onShoeDeleted(Long shoeId) {
+    }
+}
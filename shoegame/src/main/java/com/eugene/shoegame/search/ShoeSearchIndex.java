@@ -0,0 +1,16 @@
+package com.eugene.shoegame.search;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+
+import java.util.List;
+
+// Full-text search over every user's shoes (name, brand and color), best matches first.
+// Which implementation is used is picked with the shoegame.search.engine property.
+public interface ShoeSearchIndex {
+
+    public List<ShoeDTO> search(String query, int page, int size);
+
+    // Called whenever a shoe is written, implementations that index inside the database can ignore these.
+    public void onShoeSaved(ShoeDTO shoeDTO);
+    public void onShoeDeleted(Long shoeId);
+}
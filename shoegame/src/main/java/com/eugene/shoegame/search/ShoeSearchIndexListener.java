@@ -0,0 +1,44 @@
+package com.eugene.shoegame.search;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.ShoeEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// JPA entity listener on ShoeEntity that forwards entity writes to the search index.
+// Bulk JPQL updates/deletes skip entity listeners, ShoeServiceImpl notifies the index for those itself.
+@Component
+public class ShoeSearchIndexListener {
+
+    // Looked up lazily: the listener is created while the EntityManagerFactory is still being built.
+    private final ObjectProvider<ShoeSearchIndex> shoeSearchIndex;
+
+    @Autowired
+    public ShoeSearchIndexListener(ObjectProvider<ShoeSearchIndex> shoeSearchIndex) {
+        this.shoeSearchIndex = shoeSearchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(ShoeEntity shoeEntity) {
+        shoeSearchIndex.ifAvailable(index -> index.onShoeSaved(ShoeDTO.builder()
+                .id(shoeEntity.getId())
+                .name(shoeEntity.getName())
+                .brand(shoeEntity.getBrand())
+                .size(shoeEntity.getSize())
+                .color(shoeEntity.getColor())
+                .price(shoeEntity.getPrice())
+                .userId(shoeEntity.getUserEntity().getUserId())
+                .version(shoeEntity.getVersion())
+                .build()));
+    }
+
+    @PostRemove
+    public void onRemoved(ShoeEntity shoeEntity) {
+        shoeSearchIndex.ifAvailable(index -> index.onShoeDeleted(shoeEntity.getId()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.eugene.shoegame.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Bound from shoegame.search.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.search")
+public class ShoeSearchProperties {
+
+    // postgres or memory, picks the ShoeSearchIndex implementation.
+    private String engine = "postgres";
+    // Postgres only, 0 (the default) ranks every match of a query. A positive value caps the matches that get
+    // ranked: cheaper for a query matching half the table, but once a query has more matches than this, the
+    // results are the best of an arbitrary sample of them, not the best overall, and pages past the cap are empty.
+    private int maxRankedMatches = 0;
+}
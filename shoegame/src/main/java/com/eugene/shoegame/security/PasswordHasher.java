@@ -0,0 +1,115 @@
+package com.eugene.shoegame.security;
+
+import com.eugene.shoegame.exceptions.userexceptions.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// BCrypt hashing on a dedicated, bounded worker pool so a login storm can only use poolSize cores
+// and never the request threads. When the queue is full requests fail fast with a 503 instead of piling up.
+// Metrics: executor.* (tag name=passwordHashing) for the pool and queue, password.hashing.rejected for rejections.
+@Component
+@EnableConfigurationProperties(PasswordHashingProperties.class)
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PasswordHasher(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        this.encoder = new BCryptPasswordEncoder(properties.getStrength());
+        this.timeoutMillis = properties.getTimeout().toMillis();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "passwordHashing", List.of()).bindTo(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Password hashes rejected because the hashing pool was saturated")
+                .register(meterRegistry);
+    }
+
+    public String hash(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    // Both branches compare in constant time: BCrypt compares the derived hashes without an early return,
+    // and passwords stored before hashing was introduced (plain text) go through MessageDigest.isEqual.
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (!isBCryptHash(storedPassword)) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+        return run(() -> encoder.matches(rawPassword, storedPassword));
+    }
+
+    // True for plain-text legacy passwords and for hashes made with a lower strength than configured.
+    public boolean needsRehash(String storedPassword) {
+        return !isBCryptHash(storedPassword) || encoder.upgradeEncoding(storedPassword);
+    }
+
+    private boolean isBCryptHash(String storedPassword) {
+        return storedPassword != null && BCRYPT_PATTERN.matcher(storedPassword).matches();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingUnavailableException("Too many logins in progress, please try again later");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException("Password check timed out, please try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("Password check was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.eugene.shoegame.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Bound from shoegame.password.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.password")
+public class PasswordHashingProperties {
+
+    // BCrypt cost factor (log2 rounds). Raising it makes existing hashes get upgraded on the next login.
+    private int strength = 10;
+    // Hashing is pure CPU work, so by default there is one worker per core.
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    // Hashes waiting for a worker, beyond that new requests are rejected with 503.
+    private int queueCapacity = 64;
+    // How long a request waits for its hash before giving up.
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,38 @@
+package com.eugene.shoegame.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Reads "Authorization: Bearer <token>" and, when the token is valid, puts its user id in the
+// AUTHENTICATED_USER_ID request attribute. It never rejects anything itself: whether a request needs a token,
+// and for which user, is decided by TokenAuthorizationInterceptor once Spring MVC has resolved the handler and its
+// {userId}. Only the token is checked, the user is never loaded from the database. Registered in AuthConfig.
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String AUTHENTICATED_USER_ID = "authenticatedUserId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            tokenService.verifyToken(header.substring(BEARER_PREFIX.length()))
+                    .ifPresent(userId -> request.setAttribute(AUTHENTICATED_USER_ID, userId));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
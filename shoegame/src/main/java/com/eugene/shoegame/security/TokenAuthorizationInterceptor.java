@@ -0,0 +1,61 @@
+package com.eugene.shoegame.security;
+
+import com.eugene.shoegame.exceptions.shoeexceptions.ApiErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Guards /shoegame/users/{userId}/shoes/**: the request needs a valid access token (see TokenAuthenticationFilter)
+// for that same user. Runs after handler mapping, so {userId} is the value Spring MVC routes with, already decoded
+// and without matrix parameters (/users/%31/shoes and /users/1;x=1/shoes are user 1 as well).
+// Registered in AuthConfig.
+public class TokenAuthorizationInterceptor implements HandlerInterceptor {
+
+    public static final String PATH_PATTERN = "/shoegame/users/{userId}/shoes/**";
+
+    private final ObjectMapper objectMapper;
+
+    public TokenAuthorizationInterceptor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        Object tokenUserId = request.getAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER_ID);
+        if (tokenUserId == null) {
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing, invalid or expired access token");
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!tokenUserId.equals(parseUserId(pathVariables != null ? pathVariables.get("userId") : null))) {
+            reject(response, HttpStatus.FORBIDDEN, "Access token does not belong to this user");
+            return false;
+        }
+        return true;
+    }
+
+    // Parsed the way the controller will bind it, so e.g. "01" is user 1 here as well.
+    private static Long parseUserId(String userId) {
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrorResponse(status.name(), message));
+    }
+}
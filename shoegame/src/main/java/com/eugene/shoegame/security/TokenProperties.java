@@ -0,0 +1,22 @@
+package com.eugene.shoegame.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Bound from shoegame.token.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.token")
+public class TokenProperties {
+
+    // When false the shoe endpoints are open, as they were before tokens existed.
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofHours(1);
+    // Signing keys by key id, base64 encoded, at least 32 bytes. Keeping the old key around while signing
+    // with a new one lets tokens issued before a rotation stay valid until they expire.
+    private Map<String, String> keys = new HashMap<>();
+    private String activeKeyId;
+}
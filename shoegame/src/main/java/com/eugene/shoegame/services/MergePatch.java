@@ -0,0 +1,39 @@
+package com.eugene.shoegame.services;
+
+import com.eugene.shoegame.exceptions.shoeexceptions.InvalidPatchException;
+
+// Typed reads of JSON Merge Patch (RFC 7396) values. The body is bound to a Map, so a field that is
+// present with null means "clear it", a missing field means "leave it alone".
+final class MergePatch {
+
+    private MergePatch() {
+    }
+
+    static String string(String field, Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw new InvalidPatchException("Field " + field + " must be a string");
+    }
+
+    static String requiredString(String field, Object value) {
+        if (value instanceof String text && !text.isEmpty()) {
+            return text;
+        }
+        throw new InvalidPatchException("Field " + field + " must be a non-empty string");
+    }
+
+    static Double number(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        throw new InvalidPatchException("Field " + field + " must be a number");
+    }
+
+    static InvalidPatchException unknownField(String field) {
+        return new InvalidPatchException("Unknown field: " + field);
+    }
+}
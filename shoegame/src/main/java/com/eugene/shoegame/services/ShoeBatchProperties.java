@@ -0,0 +1,15 @@
+package com.eugene.shoegame.services;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Bound from shoegame.batch.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.batch")
+public class ShoeBatchProperties {
+
+    // Items per batch request. A batch is one transaction that holds the user's row lock until it commits,
+    // and updates/deletes look its ids up in one IN (...) list, which Postgres caps at 32767 parameters.
+    // Bigger imports are sent as several requests.
+    private int maxSize = 1000;
+}
@@ -0,0 +1,12 @@
+package com.eugene.shoegame.services;
+
+import com.eugene.shoegame.dto.ShoeChangeDTO;
+import lombok.Value;
+
+// Published by ShoeServiceImpl for every shoe it creates, updates or deletes. Listeners that act on it should
+// be @TransactionalEventListener, so a rolled back write is never announced.
+@Value
+public class ShoeChangedEvent {
+    Long userId;
+    ShoeChangeDTO change;
+}
@@ -1,14 +1,31 @@
 package com.eugene.shoegame.services;
 
+import com.eugene.shoegame.dto.ShoeBatchResultDTO;
 import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeSearchCriteriaDTO;
+import com.eugene.shoegame.dto.ShoeStatsDTO;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ShoeService {
 
     public ShoeDTO createShoe(Long userId, ShoeDTO shoeDTO);
     public ShoeDTO getShoeById(Long userId, Long id);
+    public Long getShoeVersion(Long userId, Long id);
     public List<ShoeDTO> getAllShoesByUser(Long userId);
-    public ShoeDTO updateShoe(Long userId, Long id, ShoeDTO shoeDTO);
-    public void deleteShoe(Long userId, Long id);
+    public List<ShoeDTO> getShoesByUserAfter(Long userId, Long afterId, Integer limit);
+    public void streamAllShoesByUser(Long userId, Consumer<ShoeDTO> consumer);
+    public ShoeStatsDTO getShoeStatsByUser(Long userId);
+    public List<ShoeDTO> searchShoesByUser(Long userId, ShoeSearchCriteriaDTO criteria);
+    public List<ShoeDTO> searchAllShoes(String query, Integer page, Integer size);
+    // expectedVersion is the client's If-Match version, null writes unconditionally.
+    public ShoeDTO updateShoe(Long userId, Long id, ShoeDTO shoeDTO, Long expectedVersion);
+    public void deleteShoe(Long userId, Long id, Long expectedVersion);
+    // JSON Merge Patch: only the fields present in the map are changed.
+    public ShoeDTO patchShoe(Long userId, Long id, Map<String, Object> patch, Long expectedVersion);
+    public List<ShoeBatchResultDTO> createShoes(Long userId, List<ShoeDTO> shoeDTOs);
+    public List<ShoeBatchResultDTO> updateShoes(Long userId, List<ShoeDTO> shoeDTOs);
+    public List<ShoeBatchResultDTO> deleteShoes(Long userId, List<Long> ids);
 }
@@ -1,86 +1,454 @@
 package com.eugene.shoegame.services;
 
+import com.eugene.shoegame.config.CacheConfig;
+import com.eugene.shoegame.config.MetricsConfig;
+import com.eugene.shoegame.dto.ShoeBatchResultDTO;
+import com.eugene.shoegame.dto.ShoeChangeDTO;
+import com.eugene.shoegame.dto.ShoeChangeType;
 import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeGroupStatsDTO;
+import com.eugene.shoegame.dto.ShoeSearchCriteriaDTO;
+import com.eugene.shoegame.dto.ShoeStatsDTO;
 import com.eugene.shoegame.entities.ShoeEntity;
 import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.exceptions.shoeexceptions.BatchTooLargeException;
+import com.eugene.shoegame.exceptions.shoeexceptions.InvalidSearchParameterException;
 import com.eugene.shoegame.exceptions.shoeexceptions.ResourceNotFoundException;
+import com.eugene.shoegame.exceptions.shoeexceptions.ShoeVersionConflictException;
 import com.eugene.shoegame.exceptions.userexceptions.UserNotFoundException;
 import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.ShoeSpecifications;
 import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.search.ShoeSearchIndex;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service //  marks the class as a service component in Spring's component scanning.
+@Timed(MetricsConfig.SERVICE_TIMER)
+@EnableConfigurationProperties(ShoeBatchProperties.class)
 public class ShoeServiceImpl implements ShoeService {
 
+    static final int DEFAULT_PAGE_LIMIT = 50;
+    static final int MAX_PAGE_LIMIT = 500;
+    // Only indexed (or primary key) columns can be sorted on.
+    static final Set<String> SORTABLE_FIELDS = Set.of("id", "name", "brand", "size", "color", "price");
+
     private final ShoeRepository shoeRepository;
 
     // Introducing user association to include users handling shoe's CRUD implementation
     private final UserRepository userRepository;
 
+    // Single shoes are cached under "userId:shoeId", the batch methods evict their entries by hand.
+    private final Cache shoesCache;
+    private final Cache shoeStatsCache;
+
+    private final ShoeSearchIndex shoeSearchIndex;
+
+    // Every write announces its changes as ShoeChangedEvents: the OutboxWriter stores them in the same
+    // transaction, the change feed sends them out after commit.
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ShoeBatchProperties batchProperties;
+
     @Autowired
-    public ShoeServiceImpl(final ShoeRepository shoeRepository, UserRepository userRepository){
+    public ShoeServiceImpl(final ShoeRepository shoeRepository, UserRepository userRepository,
+                           CacheManager cacheManager, ShoeSearchIndex shoeSearchIndex,
+                           ApplicationEventPublisher eventPublisher, ShoeBatchProperties batchProperties){
         this.shoeRepository = shoeRepository;
         this.userRepository = userRepository;
+        this.shoeSearchIndex = shoeSearchIndex;
+        this.eventPublisher = eventPublisher;
+        this.batchProperties = batchProperties;
+        this.shoesCache = cacheManager.getCache(CacheConfig.SHOES);
+        this.shoeStatsCache = cacheManager.getCache(CacheConfig.SHOE_STATS);
     }
 
+    // Transactional so the outbox row for the new shoe is written together with it.
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SHOE_STATS, key = "#userId")
     public ShoeDTO createShoe(Long userId, ShoeDTO shoeDTO) {
-        UserEntity userEntity = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        UserEntity userEntity = findUserForNewShoes(userId);
 
         ShoeEntity shoeEntity= convertShoeDTOToShoeEntity(shoeDTO);
         shoeEntity.setUserEntity(userEntity);
         ShoeEntity savedShoe = shoeRepository.save(shoeEntity);
-        return convertShoeEntityToShoeDTO(savedShoe);
+        ShoeDTO createdShoe = convertShoeEntityToShoeDTO(savedShoe);
+        publishChange(userId, ShoeChangeType.CREATED, createdShoe.getId(), createdShoe);
+        return createdShoe;
     }
 
+    // Read paths run in read-only transactions: Hibernate skips dirty-checking and flushing,
+    // and the DTO projections below never put entities into the persistence context.
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.SHOES, key = "#userId + ':' + #id")
     public ShoeDTO getShoeById(Long userId, Long id) {
-        ShoeEntity shoeEntity = shoeRepository.findByIdAndUserEntity_UserId(id, userId)
+        return shoeRepository.findShoeDTOByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Shoe not found, id is:" + id));
+    }
 
-        return convertShoeEntityToShoeDTO(shoeEntity);
+    // Not cached on purpose: it's a single-column primary key lookup, and it has to be exact for conditional requests.
+    @Override
+    @Transactional(readOnly = true)
+    public Long getShoeVersion(Long userId, Long id) {
+        return shoeRepository.findVersionByIdAndUserId(id, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Shoe not found, id is:" + id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ShoeDTO> getAllShoesByUser(Long userId) {
-        List<ShoeEntity> shoeEntities = shoeRepository.findAllByUserEntity_UserId(userId);
-        List<ShoeDTO> shoeDTOs = new ArrayList<>();
+        return shoeRepository.findAllShoeDTOsByUserId(userId);
+    }
 
-        for (ShoeEntity shoeEntity : shoeEntities) {
-            ShoeDTO shoeDTO = convertShoeEntityToShoeDTO(shoeEntity);
-            shoeDTOs.add(shoeDTO);
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShoeDTO> getShoesByUserAfter(Long userId, Long afterId, Integer limit) {
+        // A missing cursor means "start from the beginning", ids are always positive.
+        long cursor = afterId == null ? 0L : afterId;
+        int pageSize = limit == null ? DEFAULT_PAGE_LIMIT : Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+
+        return shoeRepository.findShoeDTOsByUserIdAfter(userId, cursor, Limit.of(pageSize));
+    }
+
+    @Override
+    @Transactional(readOnly = true) // the cursor behind the stream only lives as long as the transaction.
+    public void streamAllShoesByUser(Long userId, Consumer<ShoeDTO> consumer) {
+        try (Stream<ShoeDTO> shoeDTOs = shoeRepository.streamShoeDTOsByUserId(userId)) {
+            shoeDTOs.forEach(consumer);
         }
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShoeDTO> searchShoesByUser(Long userId, ShoeSearchCriteriaDTO criteria) {
+        String sortField = criteria.getSort() == null ? "id" : criteria.getSort();
+        if (!SORTABLE_FIELDS.contains(sortField)) {
+            throw new InvalidSearchParameterException("Cannot sort shoes by: " + sortField);
+        }
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (criteria.getDirection() != null) {
+            direction = Sort.Direction.fromOptionalString(criteria.getDirection())
+                    .orElseThrow(() -> new InvalidSearchParameterException("Invalid sort direction: " + criteria.getDirection()));
+        }
+        // id is the tie breaker so results come back in a stable order.
+        Sort sort = Sort.by(direction, sortField).and(Sort.by("id"));
+        int pageSize = criteria.getLimit() == null ? DEFAULT_PAGE_LIMIT : Math.max(1, Math.min(criteria.getLimit(), MAX_PAGE_LIMIT));
+
+        List<ShoeEntity> shoeEntities = shoeRepository.findBy(ShoeSpecifications.matching(userId, criteria),
+                query -> query.sortBy(sort).limit(pageSize).all());
+        List<ShoeDTO> shoeDTOs = new ArrayList<>(shoeEntities.size());
+
+        for (ShoeEntity shoeEntity : shoeEntities) {
+            shoeDTOs.add(convertShoeEntityToShoeDTO(shoeEntity));
+        }
         return shoeDTOs;
+    }
 
+    @Override
+    public List<ShoeDTO> searchAllShoes(String query, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_PAGE_LIMIT : Math.max(1, Math.min(size, MAX_PAGE_LIMIT));
+        return shoeSearchIndex.search(query, pageNumber, pageSize);
     }
 
+    // Counts, total value and the brand/color/size breakdowns all come from aggregate queries,
+    // the result is cached per user until one of their shoes changes.
     @Override
-    public ShoeDTO updateShoe(Long userId, Long id, ShoeDTO shoeDTO) {
-        // First, I need to get an existing shoe.
-        ShoeEntity existingShoeEntity = shoeRepository.findByIdAndUserEntity_UserId(id, userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Shoe to be updated not found, id is:"+ id));
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.SHOE_STATS, key = "#userId")
+    public ShoeStatsDTO getShoeStatsByUser(Long userId) {
+        ShoeGroupStatsDTO totals = shoeRepository.findTotalsByUserId(userId)
+                .orElse(new ShoeGroupStatsDTO(userId, 0L, 0.0));
+
+        return ShoeStatsDTO.builder()
+                .userId(userId)
+                .count(totals.getCount())
+                .totalValue(totals.getTotalValue())
+                .averagePrice(totals.getCount() == 0 ? 0.0 : totals.getTotalValue() / totals.getCount())
+                .byBrand(shoeRepository.findBrandStatsByUserId(userId))
+                .byColor(shoeRepository.findColorStatsByUserId(userId))
+                .bySize(shoeRepository.findSizeStatsByUserId(userId))
+                .build();
+    }
+
+    // Update and delete are single UPDATE/DELETE statements scoped to the owner,
+    // the affected row count tells us whether the shoe was there, no SELECT beforehand.
+    // A PUT without If-Match stays that single statement: we don't know which version the UPDATE produced,
+    // so the result carries no version and the cached entry is dropped instead of refreshed.
+    @Override
+    @Transactional
+    @Caching(put = @CachePut(cacheNames = CacheConfig.SHOES, key = "#userId + ':' + #id", unless = "#result.version == null"),
+            evict = {
+                    @CacheEvict(cacheNames = CacheConfig.SHOES, key = "#userId + ':' + #id", condition = "#expectedVersion == null"),
+                    @CacheEvict(cacheNames = CacheConfig.SHOE_STATS, key = "#userId")
+            })
+    public ShoeDTO updateShoe(Long userId, Long id, ShoeDTO shoeDTO, Long expectedVersion) {
+        int updatedRows = shoeRepository.updateByIdAndUserId(id, userId, expectedVersion,
+                shoeDTO.getName(), shoeDTO.getBrand(), shoeDTO.getSize(), shoeDTO.getColor(), shoeDTO.getPrice());
+
+        if (updatedRows == 0) {
+            // Without a version condition the only way to miss the row is that it isn't there (or isn't ours).
+            throw expectedVersion == null
+                    ? new ResourceNotFoundException("Shoe to be updated not found, id is:" + id)
+                    : writeFailure(userId, id, "Shoe to be updated not found, id is:" + id);
+        }
+        // The UPDATE bumped the version by one.
+        Long version = expectedVersion != null ? expectedVersion + 1 : null;
 
+        // Every column was overwritten with the request values, so they are the new state of the row.
+        ShoeDTO updatedShoe = ShoeDTO.builder()
+                .id(id)
+                .name(shoeDTO.getName())
+                .brand(shoeDTO.getBrand())
+                .size(shoeDTO.getSize())
+                .color(shoeDTO.getColor())
+                .price(shoeDTO.getPrice())
+                .userId(userId)
+                .version(version)
+                .build();
+        // Bulk statements don't go through the entity listener, so the search index is told here.
+        shoeSearchIndex.onShoeSaved(updatedShoe);
+        publishChange(userId, ShoeChangeType.UPDATED, id, updatedShoe);
+        return updatedShoe;
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SHOES, key = "#userId + ':' + #shoeId"),
+            @CacheEvict(cacheNames = CacheConfig.SHOE_STATS, key = "#userId")
+    })
+    public void deleteShoe(Long userId, Long shoeId, Long expectedVersion) {
+        int deletedRows = shoeRepository.deleteByIdAndUserId(shoeId, userId, expectedVersion);
 
-        updateShoeEntityFromShoeDTO(existingShoeEntity, shoeDTO);
-        ShoeEntity updatedShoe = shoeRepository.save(existingShoeEntity);
-        return convertShoeEntityToShoeDTO(updatedShoe);
+        if (deletedRows == 0) {
+            throw writeFailure(userId, shoeId, "Shoe to be deleted not found, id is:" + shoeId);
+        }
+        shoeSearchIndex.onShoeDeleted(shoeId);
+        publishChange(userId, ShoeChangeType.DELETED, shoeId, null);
     }
 
+    // Loads the shoe and sets only the patched fields. Hibernate's dirty checking plus @DynamicUpdate turn that into
+    // an UPDATE of just the changed columns (none at all if nothing changed), guarded by the version column.
     @Override
-    public void deleteShoe(Long userId, Long shoeId) {
-        ShoeEntity shoeEntity = shoeRepository.findByIdAndUserEntity_UserId(shoeId, userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Shoe to be deleted not found, id is:" + shoeId));
+    @Transactional
+    @Caching(put = @CachePut(cacheNames = CacheConfig.SHOES, key = "#userId + ':' + #id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.SHOE_STATS, key = "#userId"))
+    public ShoeDTO patchShoe(Long userId, Long id, Map<String, Object> patch, Long expectedVersion) {
+        ShoeEntity shoeEntity = shoeRepository.findByIdAndUserEntity_UserIdAndUserEntity_DeletedAtIsNull(id, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Shoe to be updated not found, id is:" + id));
 
-        shoeRepository.delete(shoeEntity);
+        if (expectedVersion != null && !expectedVersion.equals(shoeEntity.getVersion())) {
+            throw new ShoeVersionConflictException("Shoe was modified by another request, id is:" + id);
+        }
+
+        Long versionBefore = shoeEntity.getVersion();
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+            switch (name) {
+                case "name" -> shoeEntity.setName(MergePatch.string(name, value));
+                case "brand" -> shoeEntity.setBrand(MergePatch.string(name, value));
+                case "color" -> shoeEntity.setColor(MergePatch.string(name, value));
+                case "size" -> shoeEntity.setSize(MergePatch.number(name, value));
+                case "price" -> shoeEntity.setPrice(MergePatch.number(name, value));
+                // Read-only, clients may send back what they got from GET.
+                case "id", "userId", "version" -> { }
+                default -> throw MergePatch.unknownField(name);
+            }
+        }
+
+        try {
+            // Flush now so the version check of the UPDATE happens here and the returned version is the new one.
+            shoeRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Only a failed If-Match is a 412, a client that sent no precondition gets the plain 409 for the lost race.
+            if (expectedVersion == null) {
+                throw e;
+            }
+            throw new ShoeVersionConflictException("Shoe was modified by another request, id is:" + id);
+        }
+        ShoeDTO patchedShoe = convertShoeEntityToShoeDTO(shoeEntity);
+        // A patch that didn't change anything didn't write anything either.
+        if (!patchedShoe.getVersion().equals(versionBefore)) {
+            publishChange(userId, ShoeChangeType.UPDATED, id, patchedShoe);
+        }
+        return patchedShoe;
+    }
+
+    // The batch methods check the user once for the whole request and let Hibernate group the
+    // writes into JDBC batches (see hibernate.jdbc.batch_size), each item gets its own result.
+    // Batches over shoegame.batch.max-size are rejected before the first query.
+    @Override
+    @Transactional
+    public List<ShoeBatchResultDTO> createShoes(Long userId, List<ShoeDTO> shoeDTOs) {
+        checkBatchSize(shoeDTOs.size());
+        UserEntity userEntity = findUserForNewShoes(userId);
+
+        List<ShoeEntity> shoeEntities = new ArrayList<>(shoeDTOs.size());
+        for (ShoeDTO shoeDTO : shoeDTOs) {
+            ShoeEntity shoeEntity = convertShoeDTOToShoeEntity(shoeDTO);
+            shoeEntity.setUserEntity(userEntity);
+            shoeEntities.add(shoeEntity);
+        }
+
+        List<ShoeEntity> savedShoes = shoeRepository.saveAll(shoeEntities);
+        shoeStatsCache.evict(userId);
+        List<ShoeBatchResultDTO> results = new ArrayList<>(savedShoes.size());
+        for (int i = 0; i < savedShoes.size(); i++) {
+            ShoeDTO savedShoe = convertShoeEntityToShoeDTO(savedShoes.get(i));
+            publishChange(userId, ShoeChangeType.CREATED, savedShoe.getId(), savedShoe);
+            results.add(batchResult(i, savedShoe.getId(), "CREATED", null, savedShoe));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<ShoeBatchResultDTO> updateShoes(Long userId, List<ShoeDTO> shoeDTOs) {
+        checkBatchSize(shoeDTOs.size());
+        Set<Long> ids = new HashSet<>();
+        for (ShoeDTO shoeDTO : shoeDTOs) {
+            if (shoeDTO.getId() != null) {
+                ids.add(shoeDTO.getId());
+            }
+        }
+
+        // One SELECT for the whole batch, only shoes owned by this user come back.
+        Map<Long, ShoeEntity> ownedShoes = new HashMap<>();
+        for (ShoeEntity shoeEntity : shoeRepository.findAllByIdInAndUserEntity_UserIdAndUserEntity_DeletedAtIsNull(ids, userId)) {
+            ownedShoes.put(shoeEntity.getId(), shoeEntity);
+        }
+
+        // An item that carries a version is only applied if the shoe is still at that version.
+        ShoeBatchResultDTO[] results = new ShoeBatchResultDTO[shoeDTOs.size()];
+        Map<Integer, ShoeEntity> updatedShoes = new HashMap<>();
+        for (int i = 0; i < shoeDTOs.size(); i++) {
+            ShoeDTO shoeDTO = shoeDTOs.get(i);
+            ShoeEntity shoeEntity = ownedShoes.get(shoeDTO.getId());
+            if (shoeEntity == null) {
+                results[i] = batchResult(i, shoeDTO.getId(), "NOT_FOUND", "Shoe to be updated not found, id is:" + shoeDTO.getId(), null);
+            } else if (shoeDTO.getVersion() != null && !shoeDTO.getVersion().equals(shoeEntity.getVersion())) {
+                results[i] = batchResult(i, shoeDTO.getId(), "CONFLICT", "Shoe was modified, current version is:" + shoeEntity.getVersion(), null);
+            } else {
+                updateShoeEntityFromShoeDTO(shoeEntity, shoeDTO);
+                shoesCache.evict(shoeCacheKey(userId, shoeEntity.getId()));
+                updatedShoes.put(i, shoeEntity);
+            }
+        }
+        shoeStatsCache.evict(userId);
+
+        // Flushing sends the changes as batched UPDATEs and increments the versions we return.
+        shoeRepository.flush();
+        updatedShoes.forEach((i, shoeEntity) -> {
+            ShoeDTO updatedShoe = convertShoeEntityToShoeDTO(shoeEntity);
+            publishChange(userId, ShoeChangeType.UPDATED, updatedShoe.getId(), updatedShoe);
+            results[i] = batchResult(i, updatedShoe.getId(), "UPDATED", null, updatedShoe);
+        });
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional
+    public List<ShoeBatchResultDTO> deleteShoes(Long userId, List<Long> ids) {
+        checkBatchSize(ids.size());
+        Set<Long> ownedIds = new HashSet<>(shoeRepository.findIdsByIdInAndUserId(new HashSet<>(ids), userId));
+
+        // Single DELETE ... WHERE id IN (...) instead of loading and removing each entity.
+        if (!ownedIds.isEmpty()) {
+            shoeRepository.deleteAllByIdInBatch(ownedIds);
+            for (Long id : ownedIds) {
+                shoesCache.evict(shoeCacheKey(userId, id));
+                shoeSearchIndex.onShoeDeleted(id);
+                publishChange(userId, ShoeChangeType.DELETED, id, null);
+            }
+            shoeStatsCache.evict(userId);
+        }
+
+        List<ShoeBatchResultDTO> results = new ArrayList<>(ids.size());
+        Set<Long> deletedIds = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (ownedIds.contains(id) && deletedIds.add(id)) {
+                results.add(batchResult(i, id, "DELETED", null, null));
+            } else {
+                results.add(batchResult(i, id, "NOT_FOUND", "Shoe to be deleted not found, id is:" + id, null));
+            }
+        }
+        return results;
+    }
+
+    // A conditional write that changed no row: either the shoe is gone or its version moved on.
+    private RuntimeException writeFailure(Long userId, Long id, String notFoundMessage){
+        if (shoeRepository.findVersionByIdAndUserId(id, userId).isPresent()) {
+            return new ShoeVersionConflictException("Shoe was modified by another request, id is:" + id);
+        }
+        return new ResourceNotFoundException(notFoundMessage);
+    }
+
+    private void checkBatchSize(int size){
+        if (size > batchProperties.getMaxSize()) {
+            throw new BatchTooLargeException("A batch can have at most " + batchProperties.getMaxSize() + " items, got " + size);
+        }
+    }
+
+    private void publishChange(Long userId, ShoeChangeType type, Long shoeId, ShoeDTO shoeDTO){
+        eventPublisher.publishEvent(new ShoeChangedEvent(userId, new ShoeChangeDTO(type, shoeId, shoeDTO)));
+    }
+
+    // Throws UserNotFoundException for unknown and deleted users. Deliberately not the cached lookup: the shared
+    // row lock makes a concurrent DELETE /users/{id} wait until this transaction's shoes are committed, so the
+    // purge that follows sees them, and no create gets in once the user is flagged.
+    private UserEntity findUserForNewShoes(Long userId){
+        return userRepository.lockActiveUser(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
+
+    // Must match the key expression of the @Cacheable/@CachePut/@CacheEvict annotations above.
+    private String shoeCacheKey(Long userId, Long id){
+        return userId + ":" + id;
+    }
+
+    private ShoeBatchResultDTO batchResult(int index, Long id, String status, String message, ShoeDTO shoeDTO){
+        return ShoeBatchResultDTO.builder()
+                .index(index)
+                .id(id)
+                .status(status)
+                .message(message)
+                .shoe(shoeDTO)
+                .build();
     }
 
-    private ShoeEntity convertShoeDTOToShoeEntity(ShoeDTO shoeDTO){
+    // The two converters are static and package-private so ShoeMappingBenchmark (src/jmh) can call them directly.
+    static ShoeEntity convertShoeDTOToShoeEntity(ShoeDTO shoeDTO){
         return ShoeEntity.builder()
                 .name(shoeDTO.getName())
                 .brand(shoeDTO.getBrand())
@@ -90,7 +458,7 @@ public class ShoeServiceImpl implements ShoeService {
                 .build();
     }
 
-    private ShoeDTO convertShoeEntityToShoeDTO(ShoeEntity shoeEntity){
+    static ShoeDTO convertShoeEntityToShoeDTO(ShoeEntity shoeEntity){
         return ShoeDTO.builder()
                 .id(shoeEntity.getId())
                 .name(shoeEntity.getName())
@@ -99,6 +467,7 @@ public class ShoeServiceImpl implements ShoeService {
                 .color(shoeEntity.getColor())
                 .price(shoeEntity.getPrice())
                 .userId(shoeEntity.getUserEntity().getUserId())
+                .version(shoeEntity.getVersion())
                 .build();
     }
 
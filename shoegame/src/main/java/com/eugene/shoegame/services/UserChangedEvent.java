@@ -0,0 +1,12 @@
+package com.eugene.shoegame.services;
+
+import com.eugene.shoegame.dto.UserChangeType;
+import lombok.Value;
+
+// Published by UserServiceImpl inside the transaction of a registration or deletion request.
+@Value
+public class UserChangedEvent {
+    Long userId;
+    String username;
+    UserChangeType type;
+}
@@ -0,0 +1,22 @@
+package com.eugene.shoegame.services;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Bound from shoegame.user-deletion.* in application.properties.
+@Data
+@ConfigurationProperties(prefix = "shoegame.user-deletion")
+public class UserDeletionProperties {
+
+    // Shoes removed per DELETE statement (and per transaction), keeps row locks and undo small.
+    private int batchSize = 500;
+    // Breather between batches so a huge purge doesn't starve regular writers of the table.
+    private Duration pause = Duration.ofMillis(50);
+    // Attempts per purge before it's left to the next start, with retryBackoff between them.
+    private int maxAttempts = 5;
+    private Duration retryBackoff = Duration.ofSeconds(10);
+    // Purges running at the same time, further deletions queue behind them.
+    private int threads = 2;
+}
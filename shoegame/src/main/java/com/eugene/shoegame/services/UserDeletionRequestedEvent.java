@@ -0,0 +1,9 @@
+package com.eugene.shoegame.services;
+
+import lombok.Value;
+
+// Published when a user is flagged as deleted (and again for unfinished deletions on startup).
+@Value
+public class UserDeletionRequestedEvent {
+    Long userId;
+}
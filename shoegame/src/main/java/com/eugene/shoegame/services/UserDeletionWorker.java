@@ -0,0 +1,175 @@
+package com.eugene.shoegame.services;
+
+import com.eugene.shoegame.config.CacheConfig;
+import com.eugene.shoegame.entities.UserDeletionStatus;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserDeletionRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.search.ShoeSearchIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Removes the shoes of deleted users in the background, one short transaction per batch of ids.
+// Progress is committed together with every batch, so after a crash or restart the purge simply continues
+// from whatever is left (resumeUnfinished), no batch is ever counted twice. A purge that fails on the way
+// (database unavailable, a deadlock with a concurrent write) is retried a few times before it waits for a restart.
+// Purges run on their own small pool, not the applicationTaskExecutor: they sleep between batches and before
+// retries, and on the shared pool a few large ones would hold the threads async MVC responses (the shoe stream) need.
+@Slf4j
+@Component
+@EnableConfigurationProperties(UserDeletionProperties.class)
+public class UserDeletionWorker {
+
+    private final ShoeRepository shoeRepository;
+    private final UserRepository userRepository;
+    private final UserDeletionRepository userDeletionRepository;
+    private final ShoeSearchIndex shoeSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final UserDeletionProperties properties;
+
+    private final Cache usersByIdCache;
+    private final Cache shoesCache;
+    private final Cache shoeStatsCache;
+
+    // Users being purged right now, a resumed deletion and a repeated request must not run side by side.
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    // Not a bean, an Executor bean would replace Spring Boot's applicationTaskExecutor.
+    private final ExecutorService purges;
+
+    @Autowired
+    public UserDeletionWorker(ShoeRepository shoeRepository, UserRepository userRepository,
+                              UserDeletionRepository userDeletionRepository, ShoeSearchIndex shoeSearchIndex,
+                              ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                              UserDeletionProperties properties, CacheManager cacheManager) {
+        this.shoeRepository = shoeRepository;
+        this.userRepository = userRepository;
+        this.userDeletionRepository = userDeletionRepository;
+        this.shoeSearchIndex = shoeSearchIndex;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.usersByIdCache = cacheManager.getCache(CacheConfig.USERS_BY_ID);
+        this.shoesCache = cacheManager.getCache(CacheConfig.SHOES);
+        this.shoeStatsCache = cacheManager.getCache(CacheConfig.SHOE_STATS);
+        this.purges = Executors.newFixedThreadPool(properties.getThreads(),
+                Thread.ofPlatform().name("user-deletion-", 0).daemon().factory());
+    }
+
+    // Runs once the deleted flag is committed, on the purge pool so no request thread waits for it.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeletionRequested(UserDeletionRequestedEvent event) {
+        Long userId = event.getUserId();
+        purges.execute(() -> purge(userId));
+    }
+
+    // Interrupts the purges in their pause, they resume on the next start.
+    @PreDestroy
+    public void shutdown() {
+        purges.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        for (Long userId : userDeletionRepository.findUnfinishedUserIds()) {
+            log.info("Resuming deletion of user {}", userId);
+            eventPublisher.publishEvent(new UserDeletionRequestedEvent(userId));
+        }
+    }
+
+    void purge(Long userId) {
+        if (!running.add(userId)) {
+            return;
+        }
+        try {
+            // A failed attempt keeps whatever it committed, the next one continues from what is left.
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    purgeOnce(userId);
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= properties.getMaxAttempts()) {
+                        log.warn("Deletion of user {} failed {} times, it will be resumed on the next start", userId, attempt, e);
+                        return;
+                    }
+                    log.warn("Deletion of user {} failed, retrying in {}", userId, properties.getRetryBackoff(), e);
+                    if (!sleep(properties.getRetryBackoff())) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            running.remove(userId);
+        }
+    }
+
+    private void purgeOnce(Long userId) {
+        // The request evicted the user too, but a lookup could have re-cached it before the flag was committed.
+        usersByIdCache.evict(userId);
+
+        while (deleteNextBatch(userId) > 0) {
+            if (!sleep(properties.getPause())) {
+                return;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.deleteAllByIdInBatch(List.of(userId));
+            userDeletionRepository.markCompleted(userId, Instant.now());
+        });
+        shoeStatsCache.evict(userId);
+        log.info("Deleted user {}", userId);
+    }
+
+    // Deletes up to batchSize shoes and records them, returns how many were deleted.
+    private int deleteNextBatch(Long userId) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> batch = shoeRepository.findIdsByUserId(userId, Limit.of(properties.getBatchSize()));
+            if (!batch.isEmpty()) {
+                // A single DELETE ... WHERE id IN (...), bulk statements skip the entity listeners so the
+                // search index is told directly.
+                shoeRepository.deleteAllByIdInBatch(batch);
+                batch.forEach(shoeSearchIndex::onShoeDeleted);
+            }
+            userDeletionRepository.addProgress(userId, UserDeletionStatus.IN_PROGRESS, batch.size(), Instant.now());
+            return batch;
+        });
+
+        for (Long id : ids) {
+            shoesCache.evict(userId + ":" + id);
+        }
+        shoeStatsCache.evict(userId);
+        return ids.size();
+    }
+
+    private boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            // Shutting down, the deletion resumes on the next start.
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.eugene.shoegame.services;
 
 import com.eugene.shoegame.dto.UserDTO;
+import com.eugene.shoegame.dto.UserDeletionDTO;
+
+import java.util.Map;
 
 public interface UserService {
     public UserDTO registerUser(UserDTO userDTO);
     public UserDTO loginUser(UserDTO userDTO);
     public UserDTO getUserById(Long userId);
     public UserDTO updateUser(Long userId, UserDTO userDTO);
-    public void deleteUser(Long userId);
+    public UserDTO patchUser(Long userId, Map<String, Object> patch);
+    public UserDeletionDTO deleteUser(Long userId);
+    public UserDeletionDTO getUserDeletion(Long userId);
 }
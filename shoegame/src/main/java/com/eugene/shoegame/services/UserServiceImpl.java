@@ -1,98 +1,253 @@
 package com.eugene.shoegame.services;
 
+import com.eugene.shoegame.config.CacheConfig;
+import com.eugene.shoegame.config.MetricsConfig;
+import com.eugene.shoegame.dto.UserChangeType;
 import com.eugene.shoegame.dto.UserDTO;
+import com.eugene.shoegame.dto.UserDeletionDTO;
+import com.eugene.shoegame.entities.UserDeletionEntity;
+import com.eugene.shoegame.entities.UserDeletionStatus;
 import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.exceptions.shoeexceptions.ResourceNotFoundException;
 import com.eugene.shoegame.exceptions.userexceptions.InvalidPasswordException;
 import com.eugene.shoegame.exceptions.userexceptions.UserNotFoundException;
 import com.eugene.shoegame.exceptions.userexceptions.UsernameAlreadyExistsException;
+import com.eugene.shoegame.repositories.UserDeletionRepository;
 import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.security.PasswordHasher;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
-import java.util.Objects;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Map;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class UserServiceImpl implements UserService{
 
     // initiate UserRepository
     private final UserRepository userRepository;
 
+    // Lookups by id are served from this cache, every write below keeps it in sync. It holds UserDTOs without
+    // the password hash, login reads the hash from the database.
+    private final Cache usersByIdCache;
+
+    // Passwords are stored as BCrypt hashes, hashing runs on the PasswordHasher's own bounded pool.
+    private final PasswordHasher passwordHasher;
+
+    // Deleting a user only flags them, the UserDeletionWorker removes their shoes and the row afterwards.
+    private final UserDeletionRepository userDeletionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
     @Autowired
-    public UserServiceImpl(UserRepository userRepository){
+    public UserServiceImpl(UserRepository userRepository, CacheManager cacheManager, PasswordHasher passwordHasher,
+                           UserDeletionRepository userDeletionRepository, ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager){
         this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.userDeletionRepository = userDeletionRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.usersByIdCache = cacheManager.getCache(CacheConfig.USERS_BY_ID);
     }
 
 
+    // Username uniqueness is left to the unique constraint on users.username: a single INSERT, and two
+    // concurrent registrations of the same name can't both succeed.
+    // The password is hashed before the transaction starts, no connection is held during the slow part.
     @Override
     public UserDTO registerUser(UserDTO userDTO) {
-        if(userRepository.findByUsername(userDTO.getUsername()).isPresent()){
-            throw new UsernameAlreadyExistsException("Username already exists");
-        }
         UserEntity userEntity = UserEntity.builder()
                 .username(userDTO.getUsername())
-                .password(userDTO.getPassword())
+                .password(passwordHasher.hash(userDTO.getPassword()))
                 .build();
 
-        UserEntity savedUser = userRepository.save(userEntity);
-        return convertUserEntityToUserDTO(savedUser);
+        try {
+            UserEntity savedUser = transactionTemplate.execute(status -> {
+                UserEntity user = userRepository.saveAndFlush(userEntity);
+                // Written to the outbox in this transaction.
+                eventPublisher.publishEvent(new UserChangedEvent(user.getUserId(), user.getUsername(), UserChangeType.REGISTERED));
+                return user;
+            });
+            return convertUserEntityToUserDTO(savedUser);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e);
+        }
     }
 
 
+    // Always checked against the hash in the database, the hash is never cached. A login costs a BCrypt check
+    // anyway, the indexed username lookup next to it doesn't matter.
     @Override
     public UserDTO loginUser(UserDTO userDTO) {
-        // The findByUsername() returns an Optional<UserEntity>
-        UserEntity userEntity = userRepository.findByUsername(userDTO.getUsername()).orElse(null);
-        //.orElseThrow(() -> new UserNotFoundException("User not found"));
+        UserEntity user = userDTO.getUsername() == null ? null
+                : userRepository.findByUsernameAndDeletedAtIsNull(userDTO.getUsername()).orElse(null);
 
-        if(userEntity == null){
+        if(user == null){
             throw new UserNotFoundException("User not found");
         }
 
-        if (!userEntity.getPassword().equals(userDTO.getPassword())) {
+        if (!passwordHasher.matches(userDTO.getPassword(), user.getPassword())) {
             throw new InvalidPasswordException("Invalid password");
         }
-        return convertUserEntityToUserDTO(userEntity);
+
+        // Plain-text passwords from before hashing, or hashes with an outdated cost, are upgraded
+        // now that we know the correct password.
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            return rehashPassword(user, userDTO.getPassword());
+        }
+        return convertUserEntityToUserDTO(user);
     }
 
     // This method retrieves a user by their ID. Helpful for User management.
     @Override
     public UserDTO getUserById(Long userId){
-        UserEntity userEntity = userRepository.findById(userId).orElse(null);
+        UserDTO cachedUser = usersByIdCache.get(userId, UserDTO.class);
+        if (cachedUser != null) {
+            return cachedUser;
+        }
+
+        UserEntity userEntity = userRepository.findByUserIdAndDeletedAtIsNull(userId).orElse(null);
 
         if (userEntity == null) {
                 throw new UserNotFoundException("User not found");
         }
-        return convertUserEntityToUserDTO(userEntity);
+        UserDTO user = convertUserEntityToUserDTO(userEntity);
+        usersByIdCache.put(userId, user);
+        return user;
     }
 
     @Override
     public UserDTO updateUser(Long userId, UserDTO userDTO){
-        UserEntity userEntity = userRepository.findById(userId).orElse(null);
-                //.orElseThrow(() -> new UserNotFoundException("User not found"));
+        // Cached, and a 404 for unknown or deleted users before BCrypt runs.
+        getUserById(userId);
 
-        if (userEntity == null) {
+        // Hash before touching the database so no connection is held while BCrypt runs.
+        String password = null;
+        if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
+            password = passwordHasher.hash(userDTO.getPassword());
+        }
+
+        int updatedRows;
+        try {
+            updatedRows = userRepository.updateUsernameAndPassword(userId, userDTO.getUsername(), password);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e);
+        }
+        evictUser(userId);
+
+        if (updatedRows == 0) {
             throw new UserNotFoundException("User not found");
         }
 
-        if (!userEntity.getUsername().equals(userDTO.getUsername()) &&
-                userRepository.findByUsername(userDTO.getUsername()).isPresent()) {
-            throw new UsernameAlreadyExistsException("Username already exists");
+        return UserDTO.builder()
+                .userId(userId)
+                .username(userDTO.getUsername())
+                .build();
+    }
+
+    // JSON Merge Patch of username and/or password. Only the changed columns are written (@DynamicUpdate),
+    // and saving the detached entity checks its version, a concurrent change ends in a 409.
+    @Override
+    public UserDTO patchUser(Long userId, Map<String, Object> patch) {
+        UserEntity userEntity = userRepository.findByUserIdAndDeletedAtIsNull(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+            switch (name) {
+                case "username" -> userEntity.setUsername(MergePatch.requiredString(name, value));
+                // Hashed here, before any transaction is open.
+                case "password" -> userEntity.setPassword(passwordHasher.hash(MergePatch.requiredString(name, value)));
+                case "userId" -> { }
+                default -> throw MergePatch.unknownField(name);
+            }
         }
 
-        userEntity.setUsername(userDTO.getUsername());
-        if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
-            userEntity.setPassword(userDTO.getPassword());
+        UserEntity savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(userEntity);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e);
         }
+        evictUser(userId);
+        return convertUserEntityToUserDTO(savedUser);
+    }
+
+    // Flags the user and returns right away, the shoes are deleted in the background in small batches.
+    // Repeating the request for a user that is already being deleted just reports the progress.
+    @Override
+    @Transactional
+    public UserDeletionDTO deleteUser(Long userId) {
+        UserEntity userEntity = userRepository.findById(userId).orElse(null);
+        Instant now = Instant.now();
 
+        if (userEntity == null || userRepository.markDeleted(userId, now) == 0) {
+            return userDeletionRepository.findById(userId)
+                    .map(this::convertUserDeletionEntityToUserDeletionDTO)
+                    .orElseThrow(() -> new UserNotFoundException("User not found"));
+        }
+
+        UserDeletionEntity deletion = userDeletionRepository.save(UserDeletionEntity.builder()
+                .userId(userId)
+                .status(UserDeletionStatus.PENDING)
+                .shoesDeleted(0)
+                .requestedAt(now)
+                .updatedAt(now)
+                .build());
+        evictUser(userId);
+
+        // Picked up by the UserDeletionWorker once this transaction commits.
+        eventPublisher.publishEvent(new UserDeletionRequestedEvent(userId));
+        eventPublisher.publishEvent(new UserChangedEvent(userId, userEntity.getUsername(), UserChangeType.DELETED));
+        return convertUserDeletionEntityToUserDeletionDTO(deletion);
+    }
+
+    @Override
+    public UserDeletionDTO getUserDeletion(Long userId) {
+        return userDeletionRepository.findById(userId)
+                .map(this::convertUserDeletionEntityToUserDeletionDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("No deletion requested for user, id is:" + userId));
+    }
+
+    private UserDTO rehashPassword(UserEntity userEntity, String rawPassword) {
+        userEntity.setPassword(passwordHasher.hash(rawPassword));
         UserEntity updatedUser = userRepository.save(userEntity);
+        evictUser(updatedUser.getUserId());
         return convertUserEntityToUserDTO(updatedUser);
     }
 
-    @Override
-    public void deleteUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException("User not found");
+    // users.username is the only unique column besides the key, so a duplicate key means the name is taken.
+    private RuntimeException translateUniqueViolation(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException || isUniqueViolation(e)) {
+            return new UsernameAlreadyExistsException("Username already exists");
+        }
+        return e;
+    }
+
+    private boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof org.hibernate.exception.ConstraintViolationException constraintViolation) {
+                return constraintViolation.getKind() == org.hibernate.exception.ConstraintViolationException.ConstraintKind.UNIQUE;
+            }
         }
-        userRepository.deleteById(userId);
+        return false;
+    }
+
+    private void evictUser(Long userId) {
+        usersByIdCache.evict(userId);
     }
 
 
@@ -104,9 +259,19 @@ public class UserServiceImpl implements UserService{
         return UserDTO.builder()
                 .userId(userEntity.getUserId())
                 .username(userEntity.getUsername())
-                .password(userEntity.getPassword())
                 .build();
 
     }
 
+    private UserDeletionDTO convertUserDeletionEntityToUserDeletionDTO(UserDeletionEntity deletion) {
+        return UserDeletionDTO.builder()
+                .userId(deletion.getUserId())
+                .status(deletion.getStatus().name())
+                .shoesDeleted(deletion.getShoesDeleted())
+                .requestedAt(deletion.getRequestedAt())
+                .updatedAt(deletion.getUpdatedAt())
+                .completedAt(deletion.getCompletedAt())
+                .build();
+    }
+
 }
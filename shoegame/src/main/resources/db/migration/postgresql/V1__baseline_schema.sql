@@ -0,0 +1,50 @@
+-- The schema as Hibernate's ddl-auto=update has been creating it. On the existing database (baselined at
+-- version 0, see spring.flyway.* in application.properties) everything here already exists and is skipped.
+-- The indexes on shoes are left to later, non-transactional migrations: building them here would lock the table.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS shoes_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id bigint NOT NULL,
+    username varchar(255) NOT NULL UNIQUE,
+    password varchar(255) NOT NULL,
+    version bigint DEFAULT 0 NOT NULL,
+    deleted_at timestamp(6) with time zone,
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS shoes (
+    id bigint NOT NULL,
+    name varchar(255),
+    brand varchar(255),
+    size float(53),
+    color varchar(255),
+    price float(53),
+    version bigint DEFAULT 0 NOT NULL,
+    user_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    -- Same name Hibernate gives it, so ddl-auto=update recognises it.
+    CONSTRAINT FK57kdf50ls82yiygb7xecqj8pe FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE TABLE IF NOT EXISTS user_deletions (
+    user_id bigint NOT NULL,
+    status varchar(16) NOT NULL CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED')),
+    shoes_deleted bigint NOT NULL,
+    requested_at timestamp(6) with time zone NOT NULL,
+    updated_at timestamp(6) with time zone NOT NULL,
+    completed_at timestamp(6) with time zone,
+    PRIMARY KEY (user_id)
+);
+CREATE INDEX IF NOT EXISTS idx_user_deletions_status ON user_deletions (status);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    aggregate_type varchar(32) NOT NULL,
+    aggregate_id bigint NOT NULL,
+    event_type varchar(64) NOT NULL,
+    payload varchar(4000) NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,11 @@
+-- shoes.id and users.user_id used to be IDENTITY columns, ShoeEntity and UserEntity now take their ids from
+-- shoes_seq/users_seq with allocationSize 50. Hibernate's pooled optimizer treats the value nextval returns as
+-- the top of a block: nextval = V hands out V-49..V. A sequence left at 1 (what ddl-auto=update creates), or set
+-- to MAX(id) + 1, makes the first blocks collide with existing rows. So both are moved to at least MAX(id) + 50.
+-- The old version inserts through the identity columns: stop it before this runs, not after.
+
+ALTER SEQUENCE users_seq INCREMENT BY 50;
+ALTER SEQUENCE shoes_seq INCREMENT BY 50;
+
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(user_id), 0) FROM users) + 50, (SELECT last_value FROM users_seq)));
+SELECT setval('shoes_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM shoes) + 50, (SELECT last_value FROM shoes_seq)));
@@ -0,0 +1,17 @@
+-- The indexes on shoes: the ones ShoeEntity declares (same names, so ddl-auto=update finds them and leaves them
+-- alone) and the full-text GIN index PostgresShoeSearchIndex queries with. CONCURRENTLY builds them without
+-- blocking writes to shoes. It can't run inside a transaction, Flyway sees that and runs this file without one.
+-- A build that fails half-way leaves an INVALID index that IF NOT EXISTS would skip: drop it with
+-- DROP INDEX CONCURRENTLY before repairing and re-running the migration.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_user_id_id ON shoes (user_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_user_id_brand ON shoes (user_id, brand);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_user_id_color ON shoes (user_id, color);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_user_id_size ON shoes (user_id, size);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_user_id_price ON shoes (user_id, price);
+
+-- Must stay the exact expression of PostgresShoeSearchIndex.DOCUMENT, or the search can't use it.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_fts ON shoes USING gin ((
+    setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(brand, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(color, '')), 'C')));
@@ -0,0 +1,12 @@
+-- outbox_events.id was an IDENTITY column, so every outbox row was its own INSERT: a batch of 1,000 shoes paid
+-- 1,000 extra round trips. OutboxEventEntity now takes its ids from outbox_events_seq with allocationSize 50,
+-- like shoes and users (see V2 for why the sequence has to start past MAX(id) + 50).
+-- The column keeps nextval as its default, so an old version that still inserts without an id keeps working
+-- during the rollout: each of its rows takes a whole block and can't collide with the blocks Hibernate uses.
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('outbox_events_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM outbox_events) + 50, (SELECT last_value FROM outbox_events_seq)));
+
+ALTER TABLE outbox_events ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE outbox_events ALTER COLUMN id SET DEFAULT nextval('outbox_events_seq');
+ALTER SEQUENCE outbox_events_seq OWNED BY outbox_events.id;
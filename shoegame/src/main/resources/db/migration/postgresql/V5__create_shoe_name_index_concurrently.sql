@@ -0,0 +1,6 @@
+-- Sorting a user's shoes by name (ShoeServiceImpl.SORTABLE_FIELDS) had no index behind it, unlike the other
+-- sortable columns. Built CONCURRENTLY like V3, so Flyway runs this file without a transaction and writes to
+-- shoes go on during the build. The same applies if it fails half-way: drop the INVALID index with
+-- DROP INDEX CONCURRENTLY before repairing and re-running the migration.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_shoes_user_id_name ON shoes (user_id, name);
@@ -1,6 +1,8 @@
 package com.eugene.shoegame;
 
 //import jakarta.activation.DataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -19,6 +21,12 @@ public class DatabaseConnectionTest {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     public void testDatabaseConnection() throws SQLException {
         try (Connection connection = dataSource.getConnection()) {
@@ -37,4 +45,15 @@ public class DatabaseConnectionTest {
             System.out.println("Database query executed successfully.");
         }
     }
+
+    @Test
+    public void testConnectionPoolIsConfiguredAndInstrumented() throws SQLException {
+        assertEquals("shoegame", primaryDataSource.getPoolName());
+        assertEquals(20, primaryDataSource.getMaximumPoolSize());
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "shoegame").gauge());
+            assertNotNull(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "shoegame").timer());
+        }
+    }
 }
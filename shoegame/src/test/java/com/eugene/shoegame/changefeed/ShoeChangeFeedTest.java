@@ -0,0 +1,133 @@
+package com.eugene.shoegame.changefeed;
+
+import com.eugene.shoegame.dto.ShoeChangeDTO;
+import com.eugene.shoegame.dto.ShoeChangeType;
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.security.TokenService;
+import com.eugene.shoegame.services.ShoeChangedEvent;
+import com.eugene.shoegame.services.ShoeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ShoeChangeFeedTest {
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserEntity testUser;
+
+    // Every test starts from empty tables and one user.
+    @BeforeEach
+    void setUp() {
+        shoeRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new UserEntity(null, "testuser", "password"));
+    }
+
+    @Test
+    public void testShoeChangesAreStreamedAndResumable() throws Exception {
+        String authorization = "Bearer " + tokenService.issueToken(testUser.getUserId());
+        MvcResult feed = mockMvc.perform(get("/shoegame/users/{userId}/shoes/changes", testUser.getUserId())
+                        .header("Authorization", authorization)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ShoeDTO createdShoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Shoe").brand("Brand").size(10.0).color("Black").price(100.0).build());
+        shoeService.deleteShoe(testUser.getUserId(), createdShoe.getId(), null);
+
+        String events = awaitEvent(feed, "event:deleted");
+        assertTrue(events.contains("event:created"));
+        assertTrue(events.contains("\"shoeId\":" + createdShoe.getId()));
+        String createdEventId = events.substring(events.indexOf("id:") + 3, events.indexOf('\n', events.indexOf("id:")));
+
+        // Reconnecting after the created event only replays the delete.
+        MvcResult resumed = mockMvc.perform(get("/shoegame/users/{userId}/shoes/changes", testUser.getUserId())
+                        .header("Authorization", authorization)
+                        .header("Last-Event-ID", createdEventId)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andReturn();
+        assertFalse(awaitEvent(resumed, "event:deleted").contains("event:created"));
+
+        // An id we know nothing about (e.g. from before a restart) gets a reset.
+        MvcResult reset = mockMvc.perform(get("/shoegame/users/{userId}/shoes/changes", testUser.getUserId())
+                        .header("Authorization", authorization)
+                        .header("Last-Event-ID", "0-1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andReturn();
+        awaitEvent(reset, "event:reset");
+    }
+
+    // Holding the emitter's monitor is what a send stuck on a slow client's socket looks like to everyone else.
+    // The writes that overflow the subscriber's queue still return, and the subscriber is dropped. Runs on a
+    // feed of its own with a short queue.
+    @Test
+    public void testPublishingDoesNotWaitForASubscriberStuckInASend() throws InterruptedException {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setQueueCapacity(2);
+        SimpleMeterRegistry feedMeters = new SimpleMeterRegistry();
+        ShoeChangeFeed feed = new ShoeChangeFeed(properties, feedMeters);
+        try {
+            SseEmitter emitter = feed.subscribe(testUser.getUserId(), null);
+            Thread publisher = new Thread(() -> {
+                for (long shoeId = 1; shoeId <= 10; shoeId++) {
+                    feed.onShoeChanged(new ShoeChangedEvent(testUser.getUserId(),
+                            new ShoeChangeDTO(ShoeChangeType.DELETED, shoeId, null)));
+                }
+            });
+
+            synchronized (emitter) {
+                publisher.start();
+                publisher.join(5_000);
+                assertFalse(publisher.isAlive(), "publishing waited for the stuck subscriber");
+            }
+
+            assertEquals(1, feedMeters.get("shoegame.changes.evictions").counter().count());
+            assertEquals(0, feedMeters.get("shoegame.changes.subscribers").gauge().value());
+        } finally {
+            feed.shutdown();
+        }
+    }
+
+    // Events are written by the feed's sender thread, wait until the expected one shows up.
+    private String awaitEvent(MvcResult result, String event) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String content = result.getResponse().getContentAsString();
+            if (content.contains(event)) {
+                return content;
+            }
+            Thread.sleep(50);
+        }
+        fail("No " + event + " in: " + result.getResponse().getContentAsString());
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.eugene.shoegame.config;
+
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.services.ShoeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class MetricsConfigTest {
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserEntity testUser;
+
+    // Every test starts from empty tables and one user.
+    @BeforeEach
+    void setUp() {
+        shoeRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new UserEntity(null, "testuser", "password"));
+    }
+
+    @Test
+    public void testServiceAndRepositoryCallsAreTimed(){
+        shoeService.getAllShoesByUser(testUser.getUserId());
+
+        assertNotNull(meterRegistry.find("shoegame.service")
+                .tag("method", "getAllShoesByUser").timer());
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations")
+                .tags("repository", "ShoeRepository", "method", "findAllShoeDTOsByUserId").timer());
+        assertNotNull(meterRegistry.find("hibernate.statements").meter());
+    }
+}
@@ -1,33 +1,53 @@
 package com.eugene.shoegame.controllers;
 
+import com.eugene.shoegame.changefeed.ShoeChangeFeed;
+import com.eugene.shoegame.config.WireFormatConfig;
+import com.eugene.shoegame.dto.ShoeBatchResultDTO;
 import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeSearchCriteriaDTO;
+import com.eugene.shoegame.exceptions.shoeexceptions.InvalidPatchException;
+import com.eugene.shoegame.exceptions.shoeexceptions.InvalidSearchParameterException;
 import com.eugene.shoegame.exceptions.shoeexceptions.ResourceNotFoundException;
+import com.eugene.shoegame.exceptions.shoeexceptions.ShoeVersionConflictException;
 import com.eugene.shoegame.services.ShoeService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 // Using Mockito to test my controller methods.
 
 @WebMvcTest(ShoeController.class)
+@Import(WireFormatConfig.class)
 public class ShoeControllerTests {
 
     @Autowired
@@ -36,6 +56,9 @@ public class ShoeControllerTests {
     @MockBean
     private ShoeService shoeService;
 
+    @MockBean
+    private ShoeChangeFeed shoeChangeFeed;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -87,6 +110,7 @@ public class ShoeControllerTests {
                 .color("Black")
                 .price(100.0)
                 .userId(USER_ID)
+                .version(2L)
                 .build();
 
         when(shoeService.getShoeById(USER_ID, SHOE_ID)).thenReturn(shoeDTO);
@@ -100,7 +124,21 @@ public class ShoeControllerTests {
                 .andExpect(jsonPath("$.size").value(10.0))
                 .andExpect(jsonPath("$.color").value("Black"))
                 .andExpect(jsonPath("$.price").value(100.0))
-                .andExpect(jsonPath("$.userId").value(USER_ID));
+                .andExpect(jsonPath("$.userId").value(USER_ID))
+                .andExpect(header().string("ETag", "\"2\""));
+    }
+
+    @Test
+    void testGetShoeById_NotModified() throws Exception {
+        when(shoeService.getShoeVersion(USER_ID, SHOE_ID)).thenReturn(2L);
+
+        // Only the version is looked up, the shoe itself is never loaded or serialized.
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID)
+                        .header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(content().string(""));
+        verify(shoeService, never()).getShoeById(USER_ID, SHOE_ID);
     }
 
     @Test
@@ -132,6 +170,97 @@ public class ShoeControllerTests {
                 .andExpect(jsonPath("$[1].name").value("Shoe 2"));
     }
 
+    // Same list as above, in the binary formats.
+    @Test
+    void testGetAllShoesByUser_Cbor() throws Exception {
+        List<ShoeDTO> shoes = Arrays.asList(
+                ShoeDTO.builder().id(1L).name("Shoe 1").brand("Brand 1").size(10.0).color("Black").price(100.0).userId(USER_ID).build(),
+                ShoeDTO.builder().id(2L).name("Shoe 2").brand("Brand 2").size(11.0).color("White").price(110.0).userId(USER_ID).build()
+        );
+
+        when(shoeService.getAllShoesByUser(USER_ID)).thenReturn(shoes);
+
+        byte[] body = mockMvc.perform(get("/shoegame/users/{userId}/shoes", USER_ID)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(shoes, new ObjectMapper(new CBORFactory()).readValue(body, new TypeReference<List<ShoeDTO>>() {
+        }));
+    }
+
+    @Test
+    void testCreateShoe_Smile() throws Exception {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+        ShoeDTO inputShoeDTO = ShoeDTO.builder().name("New Shoe").brand("New Brand").size(10.0).color("Black").price(100.0).build();
+        ShoeDTO createdShoeDTO = ShoeDTO.builder().id(SHOE_ID).name("New Shoe").brand("New Brand").size(10.0)
+                .color("Black").price(100.0).userId(USER_ID).build();
+
+        when(shoeService.createShoe(USER_ID, inputShoeDTO)).thenReturn(createdShoeDTO);
+
+        byte[] body = mockMvc.perform(post("/shoegame/users/{userId}/shoes", USER_ID)
+                        .contentType(smile)
+                        .accept(smile)
+                        .content(smileMapper.writeValueAsBytes(inputShoeDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(createdShoeDTO, smileMapper.readValue(body, ShoeDTO.class));
+    }
+
+    @Test
+    void testGetShoesByUserAfter_Success() throws Exception {
+        List<ShoeDTO> page = Arrays.asList(
+                ShoeDTO.builder().id(3L).name("Shoe 3").brand("Brand 3").size(10.0).color("Black").price(100.0).userId(USER_ID).build(),
+                ShoeDTO.builder().id(4L).name("Shoe 4").brand("Brand 4").size(11.0).color("White").price(110.0).userId(USER_ID).build()
+        );
+
+        when(shoeService.getShoesByUserAfter(USER_ID, 2L, 2)).thenReturn(page);
+
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes", USER_ID)
+                        .param("after", "2")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(4));
+    }
+
+    @Test
+    void testStreamAllShoesByUser_Success() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ShoeDTO> consumer = invocation.getArgument(1);
+            consumer.accept(ShoeDTO.builder().id(1L).name("Shoe 1").userId(USER_ID).build());
+            consumer.accept(ShoeDTO.builder().id(2L).name("Shoe 2").userId(USER_ID).build());
+            return null;
+        }).when(shoeService).streamAllShoesByUser(eq(USER_ID), any());
+
+        MvcResult result = mockMvc.perform(get("/shoegame/users/{userId}/shoes/stream", USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("Shoe 1"))
+                .andExpect(jsonPath("$[1].name").value("Shoe 2"));
+    }
+
+    @Test
+    void testStreamShoeChanges_TooManySubscribers() throws Exception {
+        when(shoeChangeFeed.subscribe(USER_ID, "abc-3")).thenReturn(null);
+
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes/changes", USER_ID)
+                        .header("Last-Event-ID", "abc-3")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
     @Test
     void testUpdateShoe_Success() throws Exception {
         ShoeDTO inputShoeDTO = ShoeDTO.builder()
@@ -150,9 +279,10 @@ public class ShoeControllerTests {
                 .color("Red")
                 .price(120.0)
                 .userId(USER_ID)
+                .version(4L)
                 .build();
 
-        when(shoeService.updateShoe(eq(USER_ID), eq(SHOE_ID), any(ShoeDTO.class))).thenReturn(updatedShoeDTO);
+        when(shoeService.updateShoe(eq(USER_ID), eq(SHOE_ID), any(ShoeDTO.class), isNull())).thenReturn(updatedShoeDTO);
 
         mockMvc.perform(put("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -164,7 +294,53 @@ public class ShoeControllerTests {
                 .andExpect(jsonPath("$.brand").value("Updated Brand"))
                 .andExpect(jsonPath("$.size").value(11.0))
                 .andExpect(jsonPath("$.color").value("Red"))
-                .andExpect(jsonPath("$.price").value(120.0));
+                .andExpect(jsonPath("$.price").value(120.0))
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void testUpdateShoe_IfMatchConflict() throws Exception {
+        ShoeDTO inputShoeDTO = ShoeDTO.builder().name("Updated Shoe").build();
+
+        when(shoeService.updateShoe(eq(USER_ID), eq(SHOE_ID), any(ShoeDTO.class), eq(3L)))
+                .thenThrow(new ShoeVersionConflictException("Shoe was modified by another request, id is:" + SHOE_ID));
+
+        mockMvc.perform(put("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(inputShoeDTO)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value("PRECONDITION_FAILED"));
+    }
+
+    @Test
+    void testPatchShoe_Success() throws Exception {
+        ShoeDTO patchedShoeDTO = ShoeDTO.builder()
+                .id(SHOE_ID).name("Test Shoe").brand("Test Brand").size(10.0).color("Black").price(89.99)
+                .userId(USER_ID).version(5L).build();
+
+        when(shoeService.patchShoe(USER_ID, SHOE_ID, Map.of("price", 89.99), null)).thenReturn(patchedShoeDTO);
+
+        mockMvc.perform(patch("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"price\": 89.99}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(89.99))
+                .andExpect(jsonPath("$.name").value("Test Shoe"))
+                .andExpect(header().string("ETag", "\"5\""));
+    }
+
+    @Test
+    void testPatchShoe_UnknownField() throws Exception {
+        when(shoeService.patchShoe(USER_ID, SHOE_ID, Map.of("colour", "Red"), null))
+                .thenThrow(new InvalidPatchException("Unknown field: colour"));
+
+        mockMvc.perform(patch("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"colour\": \"Red\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.message").value("Unknown field: colour"));
     }
 
     @Test
@@ -177,7 +353,7 @@ public class ShoeControllerTests {
                 .price(120.0)
                 .build();
 
-        when(shoeService.updateShoe(eq(USER_ID), eq(SHOE_ID), any(ShoeDTO.class)))
+        when(shoeService.updateShoe(eq(USER_ID), eq(SHOE_ID), any(ShoeDTO.class), isNull()))
                 .thenThrow(new ResourceNotFoundException("Shoe not found"));
 
         mockMvc.perform(put("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID)
@@ -191,7 +367,7 @@ public class ShoeControllerTests {
 
     @Test
     void testDeleteShoe_Success() throws Exception {
-        doNothing().when(shoeService).deleteShoe(USER_ID, SHOE_ID);
+        doNothing().when(shoeService).deleteShoe(USER_ID, SHOE_ID, null);
 
         mockMvc.perform(delete("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID))
                 .andExpect(status().isNoContent());
@@ -200,7 +376,7 @@ public class ShoeControllerTests {
     @Test
     void testDeleteShoe_NotFound() throws Exception {
         doThrow(new ResourceNotFoundException("Shoe not found"))
-                .when(shoeService).deleteShoe(USER_ID, SHOE_ID);
+                .when(shoeService).deleteShoe(USER_ID, SHOE_ID, null);
 
         mockMvc.perform(delete("/shoegame/users/{userId}/shoes/{id}", USER_ID, SHOE_ID))
                 .andExpect(status().isNotFound())
@@ -208,4 +384,77 @@ public class ShoeControllerTests {
                 .andExpect(jsonPath("$.status").value("NOT_FOUND"))
                 .andExpect(jsonPath("$.message").value("Shoe not found"));
     }
+
+    @Test
+    void testCreateShoes_Success() throws Exception {
+        List<ShoeDTO> inputShoes = Arrays.asList(
+                ShoeDTO.builder().name("Shoe 1").brand("Brand 1").size(10.0).color("Black").price(100.0).build(),
+                ShoeDTO.builder().name("Shoe 2").brand("Brand 2").size(11.0).color("White").price(110.0).build()
+        );
+
+        List<ShoeBatchResultDTO> results = Arrays.asList(
+                ShoeBatchResultDTO.builder().index(0).id(1L).status("CREATED")
+                        .shoe(ShoeDTO.builder().id(1L).name("Shoe 1").userId(USER_ID).build()).build(),
+                ShoeBatchResultDTO.builder().index(1).id(2L).status("CREATED")
+                        .shoe(ShoeDTO.builder().id(2L).name("Shoe 2").userId(USER_ID).build()).build()
+        );
+
+        when(shoeService.createShoes(eq(USER_ID), any())).thenReturn(results);
+
+        mockMvc.perform(post("/shoegame/users/{userId}/shoes/batch", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(inputShoes)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].shoe.name").value("Shoe 2"));
+    }
+
+    @Test
+    void testDeleteShoes_PartialNotFound() throws Exception {
+        List<ShoeBatchResultDTO> results = Arrays.asList(
+                ShoeBatchResultDTO.builder().index(0).id(1L).status("DELETED").build(),
+                ShoeBatchResultDTO.builder().index(1).id(99L).status("NOT_FOUND").message("Shoe to be deleted not found, id is:99").build()
+        );
+
+        when(shoeService.deleteShoes(USER_ID, Arrays.asList(1L, 99L))).thenReturn(results);
+
+        mockMvc.perform(delete("/shoegame/users/{userId}/shoes/batch", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 99]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DELETED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void testSearchShoesByUser_Success() throws Exception {
+        List<ShoeDTO> shoes = List.of(
+                ShoeDTO.builder().id(1L).name("Air Max").brand("Nike").size(10.0).color("Black").price(120.0).userId(USER_ID).build()
+        );
+        ShoeSearchCriteriaDTO expectedCriteria = ShoeSearchCriteriaDTO.builder()
+                .brand("Nike").minSize(10.0).maxSize(10.0).maxPrice(150.0).build();
+
+        when(shoeService.searchShoesByUser(USER_ID, expectedCriteria)).thenReturn(shoes);
+
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes/search", USER_ID)
+                        .param("brand", "Nike")
+                        .param("minSize", "10")
+                        .param("maxSize", "10")
+                        .param("maxPrice", "150"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Air Max"));
+    }
+
+    @Test
+    void testSearchShoesByUser_InvalidSort() throws Exception {
+        when(shoeService.searchShoesByUser(eq(USER_ID), any(ShoeSearchCriteriaDTO.class)))
+                .thenThrow(new InvalidSearchParameterException("Cannot sort shoes by: password"));
+
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes/search", USER_ID).param("sort", "password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.message").value("Cannot sort shoes by: password"));
+    }
 }
@@ -0,0 +1,104 @@
+package com.eugene.shoegame.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two separate H2 databases stand in for the primary and the replica, each knows its own name.
+public class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    private HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        new JdbcTemplate(dataSource).execute("CREATE TABLE whoami (name VARCHAR(20))");
+        new JdbcTemplate(dataSource).update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        // Long interval: the checks are triggered by the tests themselves.
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofHours(1),
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        routingDataSource.destroy();
+        primary.close();
+        ReadYourWrites.setPrimaryRequired(false);
+    }
+
+    private String whoami(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToTheReplica() {
+        assertEquals("replica", whoami(readOnly));
+        assertEquals("primary", whoami(readWrite));
+        // No transaction at all: primary.
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    @Test
+    public void testRecentWriterReadsFromThePrimary() {
+        ReadYourWrites.setPrimaryRequired(true);
+
+        assertEquals("primary", whoami(readOnly));
+    }
+
+    @Test
+    public void testUnavailableReplicaFallsBackToThePrimary() {
+        replica.close();
+
+        assertEquals("primary", whoami(readOnly));
+        routingDataSource.checkHealth();
+        assertEquals("primary", whoami(readOnly));
+    }
+
+    // Explicit credentials are the primary's business, Hikari doesn't support them.
+    @Test
+    public void testConnectionWithCredentialsIsLeftToThePrimary() {
+        assertThrows(SQLFeatureNotSupportedException.class, () -> routingDataSource.getConnection("sa", ""));
+    }
+
+    @Test
+    public void testReadYourWritesWindow() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMinutes(1));
+        readYourWrites.recordWrite(1L);
+
+        assertTrue(readYourWrites.wroteRecently(1L));
+        assertFalse(readYourWrites.wroteRecently(2L));
+    }
+}
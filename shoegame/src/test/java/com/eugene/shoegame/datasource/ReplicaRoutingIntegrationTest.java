@@ -0,0 +1,117 @@
+package com.eugene.shoegame.datasource;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.ShoeEntity;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.security.TokenService;
+import com.eugene.shoegame.services.ShoeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.URI;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The whole application with one replica, which is the primary's own database under a second pool: the routing
+// is told apart by the shoegame.datasource.connections counter. Runs the real JpaTransactionManager and
+// open-in-view, the setup ReplicaRoutingDataSourceTest doesn't cover.
+@SpringBootTest(properties = {
+        "shoegame.datasource.read-replicas.instances[0].url=${spring.datasource.url}",
+        "shoegame.datasource.read-replicas.read-your-writes-window=1m",
+        "shoegame.outbox.relay-enabled=false"
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UserEntity user;
+    private ShoeEntity shoe;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new UserEntity(null, "replica-" + UUID.randomUUID(), "password"));
+        shoe = shoeRepository.save(ShoeEntity.builder()
+                .name("Replica Shoe").brand("Brand").size(9.0).color("Black").price(10.0).userEntity(user).build());
+    }
+
+    private double replicaConnections() {
+        return meterRegistry.get("shoegame.datasource.connections").tag("target", "replica").counter().count();
+    }
+
+    @Test
+    public void testReadOnlyServiceMethodsRunOnTheReplica() throws Exception {
+        assertInstanceOf(JpaTransactionManager.class, transactionManager);
+
+        double before = replicaConnections();
+        // Not cached yet, so this reaches the database.
+        assertEquals("Replica Shoe", shoeService.getShoeById(user.getUserId(), shoe.getId()).getName());
+        assertEquals(before + 1, replicaConnections());
+
+        // Through the web layer, with the request's open-in-view EntityManager around the transaction.
+        before = replicaConnections();
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes", user.getUserId())
+                        .header("Authorization", "Bearer " + tokenService.issueToken(user.getUserId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Replica Shoe"));
+        assertEquals(before + 1, replicaConnections());
+    }
+
+    // The write goes through an encoded, matrix-parameter spelling of the path, it still counts for the user.
+    @Test
+    public void testWritersReadTheirWritesFromThePrimary() throws Exception {
+        String token = "Bearer " + tokenService.issueToken(user.getUserId());
+        String userId = user.getUserId().toString();
+        String encodedUserId = "%3" + userId.charAt(0) + userId.substring(1);
+
+        double before = replicaConnections();
+        mockMvc.perform(post(URI.create("/shoegame/users/" + encodedUserId + "/shoes;x=1"))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ShoeDTO.builder()
+                                .name("New Shoe").brand("Brand").size(9.0).color("Black").price(10.0).build())))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes", user.getUserId()).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        assertEquals(before, replicaConnections());
+    }
+}
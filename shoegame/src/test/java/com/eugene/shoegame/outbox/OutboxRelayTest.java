@@ -0,0 +1,63 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.entities.OutboxEventEntity;
+import com.eugene.shoegame.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private OutboxRelay relay(OutboxSink sink) {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setBatchSize(2);
+        return new OutboxRelay(outboxEventRepository, sink, properties, transactionManager, new SimpleMeterRegistry());
+    }
+
+    private OutboxEventEntity event(long id) {
+        return new OutboxEventEntity(id, "shoe", 10L + id, "ShoeCreated", "{}", Instant.now());
+    }
+
+    @Test
+    public void testBatchIsDeliveredThenDeleted() {
+        TransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(outboxEventRepository.claimBatch(Limit.of(2))).thenReturn(List.of(event(1), event(2)));
+        InMemoryOutboxSink sink = new InMemoryOutboxSink();
+
+        assertEquals(2, relay(sink).relayBatch());
+
+        assertEquals(List.of(11L, 12L), sink.getEvents().stream().map(e -> e.getAggregateId()).toList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(transactionManager).commit(status);
+    }
+
+    // The rows stay in the outbox and are claimed again on the next attempt.
+    @Test
+    public void testFailedDeliveryIsRolledBack() {
+        TransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(outboxEventRepository.claimBatch(Limit.of(2))).thenReturn(List.of(event(1)));
+
+        OutboxRelay relay = relay(events -> {
+            throw new IllegalStateException("sink down");
+        });
+
+        assertThrows(IllegalStateException.class, relay::relayBatch);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(status);
+    }
+}
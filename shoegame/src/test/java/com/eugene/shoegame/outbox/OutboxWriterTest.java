@@ -0,0 +1,89 @@
+package com.eugene.shoegame.outbox;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.OutboxEventEntity;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.exceptions.shoeexceptions.ShoeVersionConflictException;
+import com.eugene.shoegame.repositories.OutboxEventRepository;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.services.ShoeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class OutboxWriterTest {
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserEntity testUser;
+
+    // Every test starts from empty tables and one user.
+    @BeforeEach
+    void setUp() {
+        shoeRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new UserEntity(null, "testuser", "password"));
+    }
+
+    // The outbox row is part of the shoe's transaction: visible inside it, gone with it on rollback. Checked
+    // before commit so no relay can deliver (and delete) it under our feet.
+    @Test
+    public void testOutboxEventIsWrittenInTheSameTransaction(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ShoeDTO createdShoe = transactionTemplate.execute(status -> {
+            ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                    .name("Shoe").brand("Brand").size(10.0).color("Black").price(100.0).build());
+
+            List<OutboxEventEntity> events = outboxEvents("shoe", shoe.getId());
+            assertEquals(1, events.size());
+            assertEquals("ShoeCreated", events.get(0).getEventType());
+            assertTrue(events.get(0).getPayload().contains("\"userId\":" + testUser.getUserId()));
+            status.setRollbackOnly();
+            return shoe;
+        });
+
+        assertFalse(shoeRepository.existsById(createdShoe.getId()));
+        assertTrue(outboxEvents("shoe", createdShoe.getId()).isEmpty());
+    }
+
+    @Test
+    public void testFailedWriteLeavesNoOutboxEvent(){
+        ShoeDTO createdShoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Shoe").brand("Brand").size(10.0).color("Black").price(100.0).build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThrows(ShoeVersionConflictException.class, () -> shoeService.updateShoe(testUser.getUserId(),
+                    createdShoe.getId(), createdShoe, createdShoe.getVersion() + 1));
+            assertTrue(outboxEvents("shoe", createdShoe.getId()).stream()
+                    .noneMatch(event -> event.getEventType().equals("ShoeUpdated")));
+            status.setRollbackOnly();
+        });
+    }
+
+    private List<OutboxEventEntity> outboxEvents(String aggregateType, Long aggregateId){
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getAggregateType().equals(aggregateType) && event.getAggregateId().equals(aggregateId))
+                .toList();
+    }
+}
@@ -0,0 +1,95 @@
+package com.eugene.shoegame.querycount;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.exceptions.shoeexceptions.QueryBudgetExceededException;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.security.TokenService;
+import com.eugene.shoegame.services.ShoeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Query counts through the whole stack. ShoeControllerTests can't check them, its ShoeService is a mock.
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QueryCountIntegrationTest {
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserEntity testUser;
+
+    // Every test starts from empty tables and one user.
+    @BeforeEach
+    void setUp() {
+        shoeRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new UserEntity(null, "testuser", "password"));
+    }
+
+    // The shoe list is one projection query, no matter how many shoes there are. Fails if it ever goes back to
+    // loading entities and touching the lazy userEntity per shoe.
+    @Test
+    public void testListingShoesRunsOneQuery(){
+        for (int i = 0; i < 3; i++) {
+            shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                    .name("Shoe " + i).brand("Brand").size(10.0).color("Black").price(100.0).build());
+        }
+
+        try (QueryCounter.Scope scope = queryCounter.open(1, true)) {
+            assertEquals(3, shoeService.getAllShoesByUser(testUser.getUserId()).size());
+            assertEquals(1, scope.getCount());
+        }
+    }
+
+    @Test
+    public void testQueryBudgetCanFailTheCaller(){
+        try (QueryCounter.Scope scope = queryCounter.open(0, true)) {
+            assertThrows(QueryBudgetExceededException.class, () -> shoeService.getAllShoesByUser(testUser.getUserId()));
+        }
+    }
+
+    @Test
+    public void testListShoesEndpointRunsOneQuery() throws Exception {
+        shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Shoe").brand("Brand").size(10.0).color("Black").price(100.0).build());
+
+        mockMvc.perform(get("/shoegame/users/{userId}/shoes", testUser.getUserId())
+                        .header("Authorization", "Bearer " + tokenService.issueToken(testUser.getUserId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(request().attribute(QueryCountFilter.QUERY_COUNT, 1));
+
+        assertNotNull(meterRegistry.find(QueryCountFilter.QUERIES_METRIC)
+                .tag("uri", "/shoegame/users/{userId}/shoes").summary());
+    }
+}
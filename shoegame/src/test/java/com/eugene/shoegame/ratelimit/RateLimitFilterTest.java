@@ -0,0 +1,146 @@
+package com.eugene.shoegame.ratelimit;
+
+import com.eugene.shoegame.security.TokenAuthenticationFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RateLimitFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static RateLimitProperties.Limit limit(int capacity, double refillPerSecond) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+
+    private RateLimitFilter filter(RateLimitProperties properties, HikariDataSource dataSource) {
+        return new RateLimitFilter(new RateLimiter(properties), new AdmissionController(properties, dataSource),
+                properties, new ObjectMapper(), meterRegistry);
+    }
+
+    private MockHttpServletResponse perform(RateLimitFilter filter, String method, String uri, String remoteAddr)
+            throws Exception {
+        return perform(filter, method, uri, remoteAddr, null);
+    }
+
+    // authenticatedUserId stands in for the token filter, which runs first.
+    private MockHttpServletResponse perform(RateLimitFilter filter, String method, String uri, String remoteAddr,
+                                            Long authenticatedUserId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        if (authenticatedUserId != null) {
+            request.setAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER_ID, authenticatedUserId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    public void testBucketAllowsBurstThenRefills() {
+        AtomicLong now = new AtomicLong(1_000L);
+        TokenBucket bucket = new TokenBucket(2, 10, now::get);
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        // Empty, the next token comes in 100ms.
+        assertEquals(100_000_000L, bucket.tryAcquire());
+
+        now.addAndGet(100_000_000L);
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    public void testUsersAreLimitedSeparately() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getPerUser().put(EndpointClass.READ, limit(2, 0.001));
+        RateLimitFilter filter = filter(properties, mock(HikariDataSource.class));
+
+        assertEquals(200, perform(filter, "GET", "/shoegame/users/1/shoes", "10.0.0.1", 1L).getStatus());
+        assertEquals(200, perform(filter, "GET", "/shoegame/users/1/shoes/7", "10.0.0.1", 1L).getStatus());
+        MockHttpServletResponse limited = perform(filter, "GET", "/shoegame/users/1/shoes", "10.0.0.1", 1L);
+        assertEquals(429, limited.getStatus());
+        assertNotNull(limited.getHeader("Retry-After"));
+
+        // Writes have no per-user limit here, and another user has a bucket of their own.
+        assertEquals(200, perform(filter, "POST", "/shoegame/users/1/shoes", "10.0.0.1", 1L).getStatus());
+        assertEquals(200, perform(filter, "GET", "/shoegame/users/2/shoes", "10.0.0.1", 2L).getStatus());
+        assertEquals(1.0, meterRegistry.get(RateLimitFilter.REJECTIONS_METRIC).tag("reason", "user").counter().count());
+    }
+
+    // Without a token nobody can spend user 1's requests, whatever the path says.
+    @Test
+    public void testUnauthenticatedRequestsDontDrainAUsersBucket() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getPerUser().put(EndpointClass.READ, limit(1, 0.001));
+        RateLimitFilter filter = filter(properties, mock(HikariDataSource.class));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform(filter, "GET", "/shoegame/users/1/shoes", "10.0.0.9").getStatus());
+        }
+        assertEquals(200, perform(filter, "GET", "/shoegame/users/1/shoes", "10.0.0.1", 1L).getStatus());
+    }
+
+    @Test
+    public void testLoginIsLimitedPerIp() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getPerIp().put(EndpointClass.AUTH, limit(1, 0.001));
+        RateLimitFilter filter = filter(properties, mock(HikariDataSource.class));
+
+        assertEquals(200, perform(filter, "POST", "/shoegame/users/login", "10.0.0.1").getStatus());
+        assertEquals(429, perform(filter, "POST", "/shoegame/users/login", "10.0.0.1").getStatus());
+        assertEquals(200, perform(filter, "POST", "/shoegame/users/login", "10.0.0.2").getStatus());
+
+        // Other spellings Spring MVC routes to the login are still logins.
+        assertEquals(429, perform(filter, "POST", "/shoegame/users/login;x", "10.0.0.1").getStatus());
+        assertEquals(429, perform(filter, "POST", "/shoegame/users/%6cogin", "10.0.0.1").getStatus());
+        assertEquals(3.0, meterRegistry.get(RateLimitFilter.REJECTIONS_METRIC).tag("endpoint", "auth").counter().count());
+    }
+
+    @Test
+    public void testRequestsAreShedWhileThePoolHasAQueue() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxPendingConnections(5);
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        RateLimitFilter filter = filter(properties, dataSource);
+
+        when(pool.getThreadsAwaitingConnection()).thenReturn(6);
+        MockHttpServletResponse shed = perform(filter, "GET", "/shoegame/users/1/shoes", "10.0.0.1");
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+
+        when(pool.getThreadsAwaitingConnection()).thenReturn(0);
+        assertEquals(200, perform(filter, "GET", "/shoegame/users/1/shoes", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    public void testConcurrencyLimitIsReleasedAfterEachRequest() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxConcurrentRequests(1);
+        AdmissionController admissionController = new AdmissionController(properties, mock(HikariDataSource.class));
+
+        assertTrue(admissionController.tryEnter());
+        assertFalse(admissionController.tryEnter());
+        admissionController.leave();
+        assertTrue(admissionController.tryEnter());
+        assertEquals(1, admissionController.getInFlight());
+    }
+}
@@ -0,0 +1,59 @@
+package com.eugene.shoegame.search;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryShoeSearchIndexTest {
+
+    private InMemoryShoeSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // No transaction is active, so writes are applied straight away.
+        index = new InMemoryShoeSearchIndex(null);
+        index.onShoeSaved(ShoeDTO.builder().id(1L).name("Air Max 90").brand("Nike").color("Black").userId(1L).build());
+        index.onShoeSaved(ShoeDTO.builder().id(2L).name("Black Runner").brand("Adidas").color("Black").userId(2L).build());
+        index.onShoeSaved(ShoeDTO.builder().id(3L).name("Pegasus").brand("Nike").color("White").userId(1L).build());
+    }
+
+    @Test
+    public void testSearchRanksNameMatchesFirst() {
+        List<ShoeDTO> found = index.search("black", 0, 10);
+
+        assertEquals(2, found.size());
+        // "black" in the name and the color outranks "black" in the color only.
+        assertEquals(2L, found.get(0).getId());
+        assertEquals(1L, found.get(1).getId());
+    }
+
+    @Test
+    public void testSearchRequiresEveryToken() {
+        List<ShoeDTO> found = index.search("NIKE white", 0, 10);
+
+        assertEquals(1, found.size());
+        assertEquals("Pegasus", found.get(0).getName());
+    }
+
+    @Test
+    public void testSearchPaginates() {
+        assertEquals(1, index.search("black", 1, 1).size());
+        assertEquals(1L, index.search("black", 1, 1).get(0).getId());
+        assertTrue(index.search("black", 2, 1).isEmpty());
+    }
+
+    @Test
+    public void testUpdateAndDeleteKeepIndexInSync() {
+        index.onShoeSaved(ShoeDTO.builder().id(3L).name("Vaporfly").brand("Nike").color("Pink").userId(1L).build());
+        assertTrue(index.search("pegasus", 0, 10).isEmpty());
+        assertEquals(1, index.search("vaporfly", 0, 10).size());
+
+        index.onShoeDeleted(3L);
+        assertTrue(index.search("vaporfly", 0, 10).isEmpty());
+        assertEquals(1, index.search("nike", 0, 10).size());
+    }
+}
@@ -0,0 +1,41 @@
+package com.eugene.shoegame.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// The SQL itself only runs on Postgres, these check which query gets sent and with what.
+public class PostgresShoeSearchIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    public void testSearchRanksEveryMatchByDefault() {
+        new PostgresShoeSearchIndex(jdbcTemplate, new ShoeSearchProperties()).search("nike", 2, 10);
+
+        verify(jdbcTemplate).query(eq(PostgresShoeSearchIndex.SEARCH_SQL), any(RowMapper.class), eq("nike"), eq(10), eq(20L));
+        // The only LIMIT comes after ORDER BY rank, so nothing is dropped before ranking.
+        String sql = PostgresShoeSearchIndex.SEARCH_SQL;
+        assertEquals(sql.indexOf("LIMIT"), sql.lastIndexOf("LIMIT"));
+        assertTrue(sql.indexOf("ORDER BY rank DESC") < sql.indexOf("LIMIT"));
+    }
+
+    @Test
+    public void testMaxRankedMatchesSamplesTheMatchesBeforeRanking() {
+        ShoeSearchProperties properties = new ShoeSearchProperties();
+        properties.setMaxRankedMatches(1000);
+
+        new PostgresShoeSearchIndex(jdbcTemplate, properties).search("nike", 0, 10);
+
+        verify(jdbcTemplate).query(eq(PostgresShoeSearchIndex.SAMPLED_SEARCH_SQL), any(RowMapper.class),
+                eq("nike"), eq(1000), eq(10), eq(0L));
+        // The cap is applied to the unordered matches, ranking happens after it.
+        String sql = PostgresShoeSearchIndex.SAMPLED_SEARCH_SQL;
+        assertTrue(sql.indexOf("LIMIT ?) matches") < sql.indexOf("ORDER BY rank DESC"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.eugene.shoegame.security;
+
+import com.eugene.shoegame.exceptions.userexceptions.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        if (passwordHasher != null) {
+            passwordHasher.shutdown();
+        }
+    }
+
+    private PasswordHasher createHasher(int strength, int poolSize, int queueCapacity) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setStrength(strength);
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+        return new PasswordHasher(properties, meterRegistry);
+    }
+
+    @Test
+    public void testHashAndMatch() {
+        passwordHasher = createHasher(4, 1, 10);
+        String hash = passwordHasher.hash("secret");
+
+        assertNotEquals("secret", hash);
+        assertTrue(passwordHasher.matches("secret", hash));
+        assertFalse(passwordHasher.matches("wrong", hash));
+        assertFalse(passwordHasher.needsRehash(hash));
+    }
+
+    @Test
+    public void testLegacyPlainTextPasswordMatchesAndNeedsRehash() {
+        passwordHasher = createHasher(4, 1, 10);
+
+        assertTrue(passwordHasher.matches("password", "password"));
+        assertFalse(passwordHasher.matches("Password", "password"));
+        assertTrue(passwordHasher.needsRehash("password"));
+    }
+
+    @Test
+    public void testHashWithLowerStrengthNeedsRehash() {
+        String weakHash = createHasher(4, 1, 10).hash("secret");
+        passwordHasher = createHasher(5, 1, 10);
+
+        assertTrue(passwordHasher.matches("secret", weakHash));
+        assertTrue(passwordHasher.needsRehash(weakHash));
+    }
+
+    @Test
+    public void testSaturatedPoolRejects() {
+        // One worker and a queue of one: a burst of concurrent hashes must see rejections.
+        passwordHasher = createHasher(12, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(CompletableFuture.runAsync(() -> passwordHasher.hash("secret"), callers));
+        }
+
+        long rejected = calls.stream().filter(call -> {
+            try {
+                call.join();
+                return false;
+            } catch (Exception e) {
+                return e.getCause() instanceof PasswordHashingUnavailableException;
+            }
+        }).count();
+        callers.shutdown();
+
+        assertTrue(rejected > 0);
+        assertEquals(rejected, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+}
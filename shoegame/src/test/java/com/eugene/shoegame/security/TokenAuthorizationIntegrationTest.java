@@ -0,0 +1,76 @@
+package com.eugene.shoegame.security;
+
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.services.ShoeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TokenAuthorizationIntegrationTest {
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserEntity testUser;
+
+    // Every test starts from empty tables and one user.
+    @BeforeEach
+    void setUp() {
+        shoeRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new UserEntity(null, "testuser", "password"));
+    }
+
+    // Encoded and matrix-parameter spellings of the path route to the same user, so they need the same token.
+    @Test
+    public void testShoeEndpointsCannotBeReachedWithoutATokenThroughAnotherPathSpelling() throws Exception {
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Shoe").brand("Brand").size(10.0).color("Black").price(100.0).build());
+        String userId = testUser.getUserId().toString();
+        String encodedUserId = userId.chars().mapToObj(c -> "%" + Integer.toHexString(c)).collect(Collectors.joining());
+
+        mockMvc.perform(get(URI.create("/shoegame/users/" + encodedUserId + "/shoes")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(URI.create("/shoegame/users/" + userId + ";x=1/shoes")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete(URI.create("/shoegame/users/" + userId + ";x/shoes/" + shoe.getId())))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(URI.create("/shoegame/users/" + userId + ";x/shoes"))
+                        .header("Authorization", "Bearer " + tokenService.issueToken(testUser.getUserId() + 1)))
+                .andExpect(status().isForbidden());
+        assertTrue(shoeRepository.existsById(shoe.getId()));
+
+        mockMvc.perform(get(URI.create("/shoegame/users/" + encodedUserId + "/shoes"))
+                        .header("Authorization", "Bearer " + tokenService.issueToken(testUser.getUserId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+}
@@ -0,0 +1,120 @@
+package com.eugene.shoegame.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenServiceTest {
+
+    private static final String KEY_1 = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final String KEY_2 = Base64.getEncoder().encodeToString("fedcba9876543210fedcba9876543210".getBytes());
+
+    private TokenProperties properties(String activeKeyId, Map<String, String> keys) {
+        TokenProperties properties = new TokenProperties();
+        properties.setTtl(Duration.ofMinutes(10));
+        properties.setKeys(keys);
+        properties.setActiveKeyId(activeKeyId);
+        return properties;
+    }
+
+    @Test
+    public void testIssuedTokenVerifies() {
+        TokenService tokenService = new TokenService(properties("k1", Map.of("k1", KEY_1)));
+
+        assertEquals(Optional.of(42L), tokenService.verifyToken(tokenService.issueToken(42L)));
+    }
+
+    @Test
+    public void testTamperedOrGarbageTokensAreRejected() {
+        TokenService tokenService = new TokenService(properties("k1", Map.of("k1", KEY_1)));
+        String token = tokenService.issueToken(42L);
+
+        assertTrue(tokenService.verifyToken(token.replace("k1.42.", "k1.43.")).isEmpty());
+        assertTrue(tokenService.verifyToken("not-a-token").isEmpty());
+        assertTrue(tokenService.verifyToken("k9.42.9999999999.abc").isEmpty());
+        assertTrue(tokenService.verifyToken(null).isEmpty());
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() {
+        Instant issuedAt = Instant.parse("2024-01-01T00:00:00Z");
+        TokenService issuer = new TokenService(properties("k1", Map.of("k1", KEY_1)), Clock.fixed(issuedAt, ZoneOffset.UTC));
+        TokenService verifier = new TokenService(properties("k1", Map.of("k1", KEY_1)),
+                Clock.fixed(issuedAt.plus(Duration.ofMinutes(11)), ZoneOffset.UTC));
+
+        assertTrue(verifier.verifyToken(issuer.issueToken(42L)).isEmpty());
+    }
+
+    @Test
+    public void testTokensSignedWithAnOlderKeyStillVerifyAfterRotation() {
+        TokenService beforeRotation = new TokenService(properties("k1", Map.of("k1", KEY_1)));
+        TokenService afterRotation = new TokenService(properties("k2", Map.of("k1", KEY_1, "k2", KEY_2)));
+
+        assertEquals(Optional.of(7L), afterRotation.verifyToken(beforeRotation.issueToken(7L)));
+    }
+
+    @Test
+    public void testFilterAuthenticatesValidTokensOnly() throws Exception {
+        TokenService tokenService = new TokenService(properties("k1", Map.of("k1", KEY_1)));
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService);
+
+        MockHttpServletRequest valid = request(tokenService.issueToken(1L));
+        filter.doFilter(valid, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(1L, valid.getAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER_ID));
+
+        // Invalid or missing tokens don't fail here, the interceptor decides whether one was needed.
+        MockHttpServletRequest invalid = request("not-a-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(invalid, response, new MockFilterChain());
+        assertNull(invalid.getAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER_ID));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testInterceptorChecksTokenAgainstPathUser() throws Exception {
+        TokenAuthorizationInterceptor interceptor = new TokenAuthorizationInterceptor(new ObjectMapper());
+
+        assertEquals(200, preHandle(interceptor, 1L, "1").getStatus());
+
+        MockHttpServletResponse otherUser = preHandle(interceptor, 1L, "2");
+        assertEquals(403, otherUser.getStatus());
+
+        MockHttpServletResponse noToken = preHandle(interceptor, null, "1");
+        assertEquals(401, noToken.getStatus());
+        assertTrue(noToken.getContentAsString().contains("UNAUTHORIZED"));
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shoegame/users/1/shoes");
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+
+    // The path variables are what the handler mapping resolved, as it would before calling the interceptor.
+    private MockHttpServletResponse preHandle(TokenAuthorizationInterceptor interceptor, Long tokenUserId,
+                                              String pathUserId) throws Exception {
+        MockHttpServletRequest request = request(null);
+        if (tokenUserId != null) {
+            request.setAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER_ID, tokenUserId);
+        }
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("userId", pathUserId));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, new Object());
+        return response;
+    }
+}
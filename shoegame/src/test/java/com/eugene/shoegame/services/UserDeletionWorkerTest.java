@@ -0,0 +1,98 @@
+package com.eugene.shoegame.services;
+
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserDeletionRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.search.ShoeSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UserDeletionWorkerTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final ShoeRepository shoeRepository = mock(ShoeRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserDeletionRepository userDeletionRepository = mock(UserDeletionRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private UserDeletionWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        UserDeletionProperties properties = new UserDeletionProperties();
+        properties.setPause(Duration.ZERO);
+        properties.setMaxAttempts(3);
+        properties.setRetryBackoff(Duration.ZERO);
+        worker = new UserDeletionWorker(shoeRepository, userRepository, userDeletionRepository,
+                mock(ShoeSearchIndex.class), mock(ApplicationEventPublisher.class), transactionManager, properties,
+                new ConcurrentMapCacheManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    // Purges sleep between batches, they must not hold threads of the shared applicationTaskExecutor.
+    @Test
+    public void testDeletionRequestIsPurgedOnTheWorkersOwnPool() {
+        AtomicReference<String> purgeThread = new AtomicReference<>();
+        when(shoeRepository.findIdsByUserId(USER_ID, Limit.of(500))).thenAnswer(invocation -> {
+            purgeThread.set(Thread.currentThread().getName());
+            return List.of();
+        });
+
+        worker.onDeletionRequested(new UserDeletionRequestedEvent(USER_ID));
+
+        verify(userDeletionRepository, timeout(5000)).markCompleted(eq(USER_ID), any());
+        assertTrue(purgeThread.get().startsWith("user-deletion-"), purgeThread.get());
+    }
+
+    // A shoe created just before the user row goes makes that DELETE fail on the foreign key. The next attempt
+    // deletes the late shoe and then the user, instead of leaving the purge stuck until a restart.
+    @Test
+    public void testFailedPurgeIsRetried() {
+        when(shoeRepository.findIdsByUserId(USER_ID, Limit.of(500)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(42L))
+                .thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("fk_shoes_user")).doNothing()
+                .when(userRepository).deleteAllByIdInBatch(List.of(USER_ID));
+
+        worker.purge(USER_ID);
+
+        verify(shoeRepository).deleteAllByIdInBatch(List.of(42L));
+        verify(userRepository, times(2)).deleteAllByIdInBatch(List.of(USER_ID));
+        verify(userDeletionRepository).markCompleted(eq(USER_ID), any());
+    }
+
+    @Test
+    public void testPurgeGivesUpAfterMaxAttempts() {
+        when(shoeRepository.findIdsByUserId(USER_ID, Limit.of(500))).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("fk_shoes_user"))
+                .when(userRepository).deleteAllByIdInBatch(List.of(USER_ID));
+
+        worker.purge(USER_ID);
+
+        verify(userRepository, times(3)).deleteAllByIdInBatch(List.of(USER_ID));
+        verify(userDeletionRepository, never()).markCompleted(any(), any());
+    }
+}
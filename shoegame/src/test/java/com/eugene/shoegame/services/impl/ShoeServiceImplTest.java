@@ -1,41 +1,83 @@
 package com.eugene.shoegame.services.impl;
 
+import com.eugene.shoegame.config.CacheConfig;
+import com.eugene.shoegame.dto.ShoeBatchResultDTO;
 import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.ShoeSearchCriteriaDTO;
+import com.eugene.shoegame.dto.ShoeStatsDTO;
+import com.eugene.shoegame.dto.UserDTO;
 import com.eugene.shoegame.entities.ShoeEntity;
 import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.exceptions.shoeexceptions.BatchTooLargeException;
+import com.eugene.shoegame.exceptions.shoeexceptions.InvalidPatchException;
+import com.eugene.shoegame.exceptions.shoeexceptions.InvalidSearchParameterException;
 import com.eugene.shoegame.exceptions.shoeexceptions.ResourceNotFoundException;
+import com.eugene.shoegame.exceptions.shoeexceptions.ShoeVersionConflictException;
+import com.eugene.shoegame.exceptions.userexceptions.UserNotFoundException;
+import com.eugene.shoegame.querycount.QueryCounter;
 import com.eugene.shoegame.repositories.ShoeRepository;
 import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.security.TokenService;
 import com.eugene.shoegame.services.ShoeService;
+import com.eugene.shoegame.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
-import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.test.context.junit4.SpringRunner;
-
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 //@DataJpaTest
 //@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@SpringBootTest
+@SpringBootTest(properties = {"shoegame.user-deletion.batch-size=2", "shoegame.user-deletion.pause=0ms",
+        "shoegame.batch.max-size=3"})
+@AutoConfigureMockMvc
 public class ShoeServiceImplTest {
     @Autowired
     private ShoeService shoeService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
     private ShoeRepository shoeRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     private UserEntity testUser;
 
     // I added a before each method that clears the DB before each test runs.
@@ -70,8 +112,7 @@ public class ShoeServiceImplTest {
         //assertEquals(userId, createdShoe.getUserId());
 
         // Verify the shoe was actually saved to the database
-        Optional<ShoeEntity> savedShoe = shoeRepository.findById(createdShoe.getUserId());
-        //Optional<ShoeEntity> savedShoe = shoeRepository.findById(createdShoe.getId());
+        Optional<ShoeEntity> savedShoe = shoeRepository.findById(createdShoe.getId());
         assertTrue(savedShoe.isPresent(), "The shoe should be found in the database");
         assertEquals(shoeDTO.getName(), savedShoe.get().getName(), "The name in the database should match");
     }
@@ -143,6 +184,41 @@ public class ShoeServiceImplTest {
         assertTrue(foundShoes.stream().anyMatch(s -> s.getName().equals("Test Shoe 2")));
     }
 
+    @Test
+    public void testGetShoesByUserAfter(){
+        List<ShoeEntity> saved = shoeRepository.saveAll(Arrays.asList(
+                ShoeEntity.builder().name("Shoe 1").brand("Brand").size(9.0).color("Black").price(10.0).userEntity(testUser).build(),
+                ShoeEntity.builder().name("Shoe 2").brand("Brand").size(9.5).color("Black").price(20.0).userEntity(testUser).build(),
+                ShoeEntity.builder().name("Shoe 3").brand("Brand").size(10.0).color("Black").price(30.0).userEntity(testUser).build()
+        ));
+
+        List<ShoeDTO> firstPage = shoeService.getShoesByUserAfter(testUser.getUserId(), null, 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(saved.get(0).getId(), firstPage.get(0).getId());
+        assertEquals(saved.get(1).getId(), firstPage.get(1).getId());
+
+        // The last id of a page is the cursor for the next one.
+        List<ShoeDTO> secondPage = shoeService.getShoesByUserAfter(testUser.getUserId(), firstPage.get(1).getId(), 2);
+        assertEquals(1, secondPage.size());
+        assertEquals(saved.get(2).getId(), secondPage.get(0).getId());
+    }
+
+    @Test
+    public void testStreamAllShoesByUser(){
+        shoeRepository.saveAll(Arrays.asList(
+                ShoeEntity.builder().name("Shoe 1").brand("Brand").size(9.0).color("Black").price(10.0).userEntity(testUser).build(),
+                ShoeEntity.builder().name("Shoe 2").brand("Brand").size(9.5).color("Black").price(20.0).userEntity(testUser).build()
+        ));
+
+        List<ShoeDTO> streamed = new ArrayList<>();
+        shoeService.streamAllShoesByUser(testUser.getUserId(), streamed::add);
+
+        assertEquals(2, streamed.size());
+        assertEquals("Shoe 1", streamed.get(0).getName());
+        assertEquals("Shoe 2", streamed.get(1).getName());
+        assertTrue(streamed.stream().allMatch(s -> s.getUserId().equals(testUser.getUserId())));
+    }
+
     @Test
     public void testUpdateShoe(){
         ShoeEntity existingShoe = ShoeEntity.builder()
@@ -164,7 +240,7 @@ public class ShoeServiceImplTest {
                 .price(150.0)
                 .build();
 
-        ShoeDTO updatedShoe = shoeService.updateShoe(testUser.getUserId(), existingShoe.getId(), updatedShoeDTO);
+        ShoeDTO updatedShoe = shoeService.updateShoe(testUser.getUserId(), existingShoe.getId(), updatedShoeDTO, null);
 
         assertNotNull(updatedShoe);
         assertEquals(existingShoe.getId(), updatedShoe.getId());
@@ -187,6 +263,118 @@ public class ShoeServiceImplTest {
 
     }
 
+    @Test
+    public void testUpdateAndDeleteShoeOfAnotherUserNotFound(){
+        UserEntity otherUser = userRepository.save(new UserEntity(null, "otheruser", "password"));
+        ShoeEntity shoe = shoeRepository.save(ShoeEntity.builder()
+                .name("Test Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).userEntity(otherUser).build());
+        ShoeDTO updatedShoeDTO = ShoeDTO.builder().name("Stolen Shoe").build();
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                shoeService.updateShoe(testUser.getUserId(), shoe.getId(), updatedShoeDTO, null));
+        assertThrows(ResourceNotFoundException.class, () ->
+                shoeService.deleteShoe(testUser.getUserId(), shoe.getId(), null));
+
+        // The other user's shoe must be untouched.
+        assertEquals("Test Shoe", shoeRepository.findById(shoe.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void testConditionalUpdateAndDeleteShoe(){
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Test Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).build());
+        assertEquals(0L, shoe.getVersion());
+
+        ShoeDTO renamed = shoeService.updateShoe(testUser.getUserId(), shoe.getId(), ShoeDTO.builder()
+                .name("Renamed Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).build(), 0L);
+        assertEquals(1L, renamed.getVersion());
+        assertEquals(1L, shoeService.getShoeVersion(testUser.getUserId(), shoe.getId()));
+
+        // A second writer that still holds version 0 must not overwrite the rename.
+        assertThrows(ShoeVersionConflictException.class, () ->
+                shoeService.updateShoe(testUser.getUserId(), shoe.getId(), ShoeDTO.builder().name("Lost Update").build(), 0L));
+        assertThrows(ShoeVersionConflictException.class, () ->
+                shoeService.deleteShoe(testUser.getUserId(), shoe.getId(), 0L));
+        assertEquals("Renamed Shoe", shoeRepository.findById(shoe.getId()).orElseThrow().getName());
+
+        shoeService.deleteShoe(testUser.getUserId(), shoe.getId(), 1L);
+        assertFalse(shoeRepository.existsById(shoe.getId()));
+    }
+
+    // A PUT without If-Match runs exactly the statements of a conditional one, no version lookup on top.
+    @Test
+    public void testUnconditionalUpdateDoesNotLookUpTheVersion(){
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Test Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).build());
+        ShoeDTO renameDTO = ShoeDTO.builder().name("Renamed Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).build();
+
+        int conditionalStatements;
+        try (QueryCounter.Scope scope = queryCounter.open(100, false)) {
+            shoeService.updateShoe(testUser.getUserId(), shoe.getId(), renameDTO, 0L);
+            conditionalStatements = scope.getCount();
+        }
+        // Fills the cache with version 1.
+        assertEquals(1L, shoeService.getShoeById(testUser.getUserId(), shoe.getId()).getVersion());
+
+        try (QueryCounter.Scope scope = queryCounter.open(100, false)) {
+            ShoeDTO updated = shoeService.updateShoe(testUser.getUserId(), shoe.getId(), renameDTO, null);
+            assertNull(updated.getVersion());
+            assertEquals(conditionalStatements, scope.getCount());
+        }
+        // The stale cache entry is gone, the next read sees the new version.
+        assertEquals(2L, shoeService.getShoeById(testUser.getUserId(), shoe.getId()).getVersion());
+    }
+
+    @Test
+    public void testPatchShoeChangesOnlyTheGivenFields(){
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Test Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).build());
+
+        ShoeDTO patched = shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("price", 45), null);
+        assertEquals(45.0, patched.getPrice());
+        assertEquals("Test Shoe", patched.getName());
+        assertEquals(1L, patched.getVersion());
+
+        ShoeEntity savedShoe = shoeRepository.findById(shoe.getId()).orElseThrow();
+        assertEquals(45.0, savedShoe.getPrice());
+        assertEquals("Green", savedShoe.getColor());
+
+        // Patching a field to the value it already has writes nothing, so the version stays.
+        assertEquals(1L, shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("price", 45.0), null).getVersion());
+
+        assertThrows(InvalidPatchException.class, () ->
+                shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("price", "cheap"), null));
+        assertThrows(InvalidPatchException.class, () ->
+                shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("colour", "Red"), null));
+        assertThrows(ShoeVersionConflictException.class, () ->
+                shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("price", 40.0), 0L));
+    }
+
+    // Another writer commits between the patch's read and its flush. With If-Match that's a failed precondition,
+    // without one the client asked for nothing and gets the plain lost-race conflict.
+    @Test
+    public void testPatchLosingARaceIs412OnlyWithIfMatch(){
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Test Shoe").brand("Test Brand").size(6.0).color("Green").price(50.0).build());
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> patchAfterConcurrentUpdate(shoe, null));
+        // The first race already moved the shoe to version 1, which is what this client read.
+        assertThrows(ShoeVersionConflictException.class, () -> patchAfterConcurrentUpdate(shoe, 1L));
+    }
+
+    private void patchAfterConcurrentUpdate(ShoeDTO shoe, Long expectedVersion){
+        TransactionTemplate otherWriter = new TransactionTemplate(transactionManager);
+        otherWriter.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            // The patch will find this already loaded copy in the persistence context.
+            shoeRepository.findByIdAndUserEntity_UserId(shoe.getId(), testUser.getUserId()).orElseThrow();
+            otherWriter.executeWithoutResult(inner -> shoeRepository.updateByIdAndUserId(shoe.getId(), testUser.getUserId(),
+                    null, "Other Name", "Test Brand", 6.0, "Green", 50.0));
+            shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("price", 40.0), expectedVersion);
+        });
+    }
+
     @Test
     public void testDeleteShoe(){
         ShoeEntity shoe = ShoeEntity.builder()
@@ -201,9 +389,209 @@ public class ShoeServiceImplTest {
         shoe = shoeRepository.save(shoe);
         Long shoeId = shoe.getId();
 
-        shoeService.deleteShoe(testUser.getUserId(), shoeId);
+        shoeService.deleteShoe(testUser.getUserId(), shoeId, null);
 
         // The existsById() method belongs to the CRUDRepository interface that is implemented by the shoeRepository instance.
         assertFalse(shoeRepository.existsById(shoeId), "The Shoe is be deleted");
     }
+
+    @Test
+    public void testCreateShoes(){
+        List<ShoeDTO> shoeDTOs = Arrays.asList(
+                ShoeDTO.builder().name("Batch Shoe 1").brand("Brand").size(9.0).color("Black").price(10.0).build(),
+                ShoeDTO.builder().name("Batch Shoe 2").brand("Brand").size(9.5).color("White").price(20.0).build()
+        );
+
+        List<ShoeBatchResultDTO> results = shoeService.createShoes(testUser.getUserId(), shoeDTOs);
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getStatus().equals("CREATED")));
+        assertEquals(2, shoeRepository.findAllByUserEntity_UserId(testUser.getUserId()).size());
+    }
+
+    @Test
+    public void testUpdateAndDeleteShoes(){
+        ShoeEntity shoe = shoeRepository.save(ShoeEntity.builder()
+                .name("Old Shoe").brand("Old Brand").size(8.0).color("Grey").price(20.0).userEntity(testUser).build());
+        Long missingId = shoe.getId() + 1000;
+
+        List<ShoeBatchResultDTO> updated = shoeService.updateShoes(testUser.getUserId(), Arrays.asList(
+                ShoeDTO.builder().id(shoe.getId()).name("New Shoe").brand("New Brand").size(9.0).color("Red").price(30.0).build(),
+                ShoeDTO.builder().id(missingId).name("Ghost").build()
+        ));
+
+        assertEquals("UPDATED", updated.get(0).getStatus());
+        assertEquals("NOT_FOUND", updated.get(1).getStatus());
+        assertEquals("New Shoe", shoeRepository.findById(shoe.getId()).orElseThrow().getName());
+
+        List<ShoeBatchResultDTO> deleted = shoeService.deleteShoes(testUser.getUserId(), Arrays.asList(shoe.getId(), missingId));
+
+        assertEquals("DELETED", deleted.get(0).getStatus());
+        assertEquals("NOT_FOUND", deleted.get(1).getStatus());
+        assertFalse(shoeRepository.existsById(shoe.getId()));
+    }
+
+    // shoegame.batch.max-size is 3 here: a fourth item rejects the whole request with a 400, nothing is written.
+    @Test
+    public void testBatchesOverTheMaximumSizeAreRejected() throws Exception {
+        ShoeEntity shoe = shoeRepository.save(ShoeEntity.builder()
+                .name("Kept Shoe").brand("Brand").size(8.0).color("Grey").price(20.0).userEntity(testUser).build());
+        List<ShoeDTO> shoeDTOs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            shoeDTOs.add(ShoeDTO.builder().id(shoe.getId()).name("Batch Shoe " + i).brand("Brand").size(9.0).color("Black").price(10.0).build());
+        }
+
+        assertThrows(BatchTooLargeException.class, () -> shoeService.createShoes(testUser.getUserId(), shoeDTOs));
+        assertThrows(BatchTooLargeException.class, () -> shoeService.updateShoes(testUser.getUserId(), shoeDTOs));
+        assertThrows(BatchTooLargeException.class, () -> shoeService.deleteShoes(testUser.getUserId(),
+                List.of(shoe.getId(), shoe.getId() + 1, shoe.getId() + 2, shoe.getId() + 3)));
+        mockMvc.perform(post("/shoegame/users/{userId}/shoes/batch", testUser.getUserId())
+                        .header("Authorization", "Bearer " + tokenService.issueToken(testUser.getUserId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"A\"},{\"name\":\"B\"},{\"name\":\"C\"},{\"name\":\"D\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("BAD_REQUEST"));
+
+        assertEquals(List.of("Kept Shoe"), shoeRepository.findAllByUserEntity_UserId(testUser.getUserId()).stream()
+                .map(ShoeEntity::getName).toList());
+    }
+
+    @Test
+    public void testCachedShoeIsRefreshedOnUpdateAndEvictedOnDelete(){
+        ShoeEntity shoe = shoeRepository.save(ShoeEntity.builder()
+                .name("Cached Shoe").brand("Brand").size(9.0).color("Black").price(10.0).userEntity(testUser).build());
+
+        // The first read fills the cache.
+        assertEquals("Cached Shoe", shoeService.getShoeById(testUser.getUserId(), shoe.getId()).getName());
+
+        shoeService.updateShoe(testUser.getUserId(), shoe.getId(), ShoeDTO.builder()
+                .name("Renamed Shoe").brand("Brand").size(9.0).color("Black").price(10.0).build(), null);
+        assertEquals("Renamed Shoe", shoeService.getShoeById(testUser.getUserId(), shoe.getId()).getName());
+
+        shoeService.deleteShoe(testUser.getUserId(), shoe.getId(), null);
+        assertThrows(ResourceNotFoundException.class, () ->
+                shoeService.getShoeById(testUser.getUserId(), shoe.getId()));
+    }
+
+    // Cache writes wait for the commit: a write that gets rolled back must not leave its value in the cache,
+    // and an eviction in a rolled-back transaction doesn't matter either.
+    @Test
+    public void testRolledBackWritesDontReachTheCache(){
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Cached Shoe").brand("Brand").size(9.0).color("Black").price(10.0).build());
+        // Fills the shoe and user caches.
+        shoeService.getShoeById(testUser.getUserId(), shoe.getId());
+        userService.getUserById(testUser.getUserId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            shoeService.updateShoe(testUser.getUserId(), shoe.getId(), ShoeDTO.builder()
+                    .name("Rolled Back").brand("Brand").size(9.0).color("Black").price(10.0).build(), 0L);
+            userService.updateUser(testUser.getUserId(), UserDTO.builder().username("rolledback").build());
+            status.setRollbackOnly();
+        });
+
+        assertEquals("Cached Shoe", shoeService.getShoeById(testUser.getUserId(), shoe.getId()).getName());
+        assertEquals("Cached Shoe", cacheManager.getCache(CacheConfig.SHOES)
+                .get(testUser.getUserId() + ":" + shoe.getId(), ShoeDTO.class).getName());
+        // The rename never happened, so the cached user is still right and stays.
+        assertEquals(testUser.getUsername(), cacheManager.getCache(CacheConfig.USERS_BY_ID)
+                .get(testUser.getUserId(), UserDTO.class).getUsername());
+    }
+
+    @Test
+    public void testGetShoeStatsByUser(){
+        ShoeStatsDTO emptyStats = shoeService.getShoeStatsByUser(testUser.getUserId());
+        assertEquals(0L, emptyStats.getCount());
+        assertEquals(0.0, emptyStats.getTotalValue());
+
+        shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder().name("Shoe 1").brand("Nike").size(10.0).color("Black").price(100.0).build());
+        shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder().name("Shoe 2").brand("Nike").size(11.0).color("White").price(150.0).build());
+        shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder().name("Shoe 3").brand("Adidas").size(10.0).color("Black").price(50.0).build());
+
+        // Creating shoes must evict the cached (empty) stats.
+        ShoeStatsDTO stats = shoeService.getShoeStatsByUser(testUser.getUserId());
+        assertEquals(3L, stats.getCount());
+        assertEquals(300.0, stats.getTotalValue());
+        assertEquals(100.0, stats.getAveragePrice());
+        assertEquals("Nike", stats.getByBrand().get(0).getKey());
+        assertEquals(2L, stats.getByBrand().get(0).getCount());
+        assertEquals(250.0, stats.getByBrand().get(0).getTotalValue());
+        assertEquals(2, stats.getByColor().size());
+        assertEquals(10.0, stats.getBySize().get(0).getKey());
+        assertEquals(2L, stats.getBySize().get(0).getCount());
+    }
+
+    @Test
+    public void testSearchShoesByUser(){
+        shoeRepository.saveAll(Arrays.asList(
+                ShoeEntity.builder().name("Air Max").brand("Nike").size(10.0).color("Black").price(120.0).userEntity(testUser).build(),
+                ShoeEntity.builder().name("Jordan").brand("Nike").size(10.0).color("Red").price(200.0).userEntity(testUser).build(),
+                ShoeEntity.builder().name("Pegasus").brand("Nike").size(10.0).color("White").price(100.0).userEntity(testUser).build(),
+                ShoeEntity.builder().name("Samba").brand("Adidas").size(10.0).color("White").price(90.0).userEntity(testUser).build()
+        ));
+
+        // "Nike, size 10, under $150", most expensive first.
+        ShoeSearchCriteriaDTO criteria = ShoeSearchCriteriaDTO.builder()
+                .brand("Nike").minSize(10.0).maxSize(10.0).maxPrice(150.0).sort("price").direction("desc").build();
+        List<ShoeDTO> found = shoeService.searchShoesByUser(testUser.getUserId(), criteria);
+
+        assertEquals(2, found.size());
+        assertEquals("Air Max", found.get(0).getName());
+        assertEquals("Pegasus", found.get(1).getName());
+
+        assertThrows(InvalidSearchParameterException.class, () ->
+                shoeService.searchShoesByUser(testUser.getUserId(), ShoeSearchCriteriaDTO.builder().sort("password").build()));
+    }
+
+    @Test
+    public void testSearchAllShoes() throws InterruptedException {
+        UserEntity otherUser = userRepository.save(new UserEntity(null, "otheruser", "password"));
+        shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder().name("Air Max").brand("Nike").size(10.0).color("Black").price(120.0).build());
+        shoeService.createShoe(otherUser.getUserId(), ShoeDTO.builder().name("Air Force").brand("Nike").size(9.0).color("White").price(90.0).build());
+        shoeService.createShoe(otherUser.getUserId(), ShoeDTO.builder().name("Samba").brand("Adidas").size(9.0).color("White").price(80.0).build());
+
+        // The search is global, it finds shoes of both users.
+        List<ShoeDTO> found = shoeService.searchAllShoes("nike air", 0, 10);
+        assertEquals(2, found.size());
+
+        assertTrue(shoeService.searchAllShoes("  ", 0, 10).isEmpty());
+
+        // Gone from the results as soon as the deletion is requested, before the purge got to the shoes.
+        userService.deleteUser(otherUser.getUserId());
+        assertEquals(List.of(testUser.getUserId()), shoeService.searchAllShoes("nike air", 0, 10).stream()
+                .map(ShoeDTO::getUserId).toList());
+
+        // Let the purge finish before the next test clears the tables under it.
+        for (int i = 0; i < 100 && !"COMPLETED".equals(userService.getUserDeletion(otherUser.getUserId()).getStatus()); i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    // Flagged but not purged yet (no purge is started here): the user's token still verifies, their shoes are
+    // still there, yet nothing can be created or changed anymore.
+    @Test
+    public void testDeletedUsersCantWriteShoes() throws Exception {
+        ShoeDTO shoe = shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder()
+                .name("Shoe").brand("Brand").size(10.0).color("Black").price(100.0).build());
+        String token = "Bearer " + tokenService.issueToken(testUser.getUserId());
+        userRepository.markDeleted(testUser.getUserId(), Instant.now());
+
+        mockMvc.perform(post("/shoegame/users/{userId}/shoes", testUser.getUserId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Late Shoe\",\"brand\":\"Brand\",\"size\":10.0,\"color\":\"Black\",\"price\":100.0}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value("NOT_FOUND"));
+        assertThrows(UserNotFoundException.class, () -> shoeService.createShoes(testUser.getUserId(),
+                List.of(ShoeDTO.builder().name("Late Shoe").build())));
+        assertThrows(ResourceNotFoundException.class, () -> shoeService.updateShoe(testUser.getUserId(), shoe.getId(),
+                ShoeDTO.builder().name("Renamed").build(), null));
+        assertThrows(ResourceNotFoundException.class, () ->
+                shoeService.patchShoe(testUser.getUserId(), shoe.getId(), Map.of("price", 1.0), null));
+        assertEquals("NOT_FOUND", shoeService.updateShoes(testUser.getUserId(),
+                List.of(ShoeDTO.builder().id(shoe.getId()).name("Renamed").build())).get(0).getStatus());
+
+        assertEquals(List.of("Shoe"), shoeRepository.findAllByUserEntity_UserId(testUser.getUserId()).stream()
+                .map(ShoeEntity::getName).toList());
+    }
 }
@@ -0,0 +1,153 @@
+package com.eugene.shoegame.services.impl;
+
+import com.eugene.shoegame.config.CacheConfig;
+import com.eugene.shoegame.dto.ShoeDTO;
+import com.eugene.shoegame.dto.UserDTO;
+import com.eugene.shoegame.dto.UserDeletionDTO;
+import com.eugene.shoegame.entities.UserEntity;
+import com.eugene.shoegame.exceptions.userexceptions.InvalidPasswordException;
+import com.eugene.shoegame.exceptions.userexceptions.UserNotFoundException;
+import com.eugene.shoegame.exceptions.userexceptions.UsernameAlreadyExistsException;
+import com.eugene.shoegame.repositories.ShoeRepository;
+import com.eugene.shoegame.repositories.UserRepository;
+import com.eugene.shoegame.services.ShoeService;
+import com.eugene.shoegame.services.UserService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"shoegame.user-deletion.batch-size=2", "shoegame.user-deletion.pause=0ms"})
+@AutoConfigureMockMvc
+public class UserServiceImplTest {
+    @Autowired
+    private ShoeService shoeService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShoeRepository shoeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private UserEntity testUser;
+
+    // Every test starts from empty tables and one user.
+    @BeforeEach
+    void setUp() {
+        shoeRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new UserEntity(null, "testuser", "password"));
+    }
+
+    @Test
+    public void testThatDeletedUsersShoesArePurgedInTheBackground() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            shoeService.createShoe(testUser.getUserId(), ShoeDTO.builder().name("Shoe " + i).brand("Nike").size(10.0).color("Black").price(100.0).build());
+        }
+
+        UserDeletionDTO deletion = userService.deleteUser(testUser.getUserId());
+        assertEquals("PENDING", deletion.getStatus());
+        // The user is gone right away, even while their shoes are still being deleted.
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(testUser.getUserId()));
+
+        for (int i = 0; i < 100 && !"COMPLETED".equals(deletion.getStatus()); i++) {
+            Thread.sleep(50);
+            deletion = userService.getUserDeletion(testUser.getUserId());
+        }
+
+        assertEquals("COMPLETED", deletion.getStatus());
+        assertEquals(5L, deletion.getShoesDeleted());
+        assertTrue(shoeRepository.findAllByUserEntity_UserId(testUser.getUserId()).isEmpty());
+        assertFalse(userRepository.existsById(testUser.getUserId()));
+    }
+
+    // Neither the responses nor the user cache ever hold the password hash.
+    @Test
+    public void testUserResponsesNeverContainThePassword() throws Exception {
+        MvcResult registered = mockMvc.perform(post("/shoegame/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"hashless\",\"password\":\"secret\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andReturn();
+        Long userId = ((Number) JsonPath.read(registered.getResponse().getContentAsString(), "$.userId")).longValue();
+
+        mockMvc.perform(post("/shoegame/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"hashless\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(userId))
+                .andExpect(jsonPath("$.password").doesNotExist());
+        mockMvc.perform(get("/shoegame/users/{userId}", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("hashless"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(userId, UserDTO.class).getPassword());
+    }
+
+    // PUT renames in one UPDATE: a missing password keeps the old one, the version goes up and the cached
+    // user is dropped, so the old username is gone for lookups and logins right away.
+    @Test
+    public void testUpdateUserRenamesAndRefreshesTheCache(){
+        UserDTO user = userService.registerUser(UserDTO.builder().username("oldname").password("secret").build());
+        Long userId = user.getUserId();
+        assertEquals("oldname", userService.getUserById(userId).getUsername());
+        Long version = userRepository.findById(userId).orElseThrow().getVersion();
+
+        UserDTO updated = userService.updateUser(userId, UserDTO.builder().username("newname").build());
+
+        assertEquals("newname", updated.getUsername());
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(userId));
+        assertEquals("newname", userService.getUserById(userId).getUsername());
+        assertEquals(version + 1, userRepository.findById(userId).orElseThrow().getVersion());
+        assertThrows(UserNotFoundException.class, () ->
+                userService.loginUser(UserDTO.builder().username("oldname").password("secret").build()));
+        assertEquals(userId, userService.loginUser(UserDTO.builder().username("newname").password("secret").build()).getUserId());
+
+        userService.updateUser(userId, UserDTO.builder().username("newname").password("changed").build());
+        assertThrows(InvalidPasswordException.class, () ->
+                userService.loginUser(UserDTO.builder().username("newname").password("secret").build()));
+        assertEquals(userId, userService.loginUser(UserDTO.builder().username("newname").password("changed").build()).getUserId());
+    }
+
+    // The unique constraint decides, its violation comes back as a 409 and the user keeps their name.
+    @Test
+    public void testUpdateUserToATakenUsernameIsAConflict() throws Exception {
+        UserDTO user = userService.registerUser(UserDTO.builder().username("taken-by-me").password("secret").build());
+        assertEquals("taken-by-me", userService.getUserById(user.getUserId()).getUsername());
+
+        assertThrows(UsernameAlreadyExistsException.class, () ->
+                userService.updateUser(user.getUserId(), UserDTO.builder().username(testUser.getUsername()).build()));
+        mockMvc.perform(put("/shoegame/users/{userId}", user.getUserId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + testUser.getUsername() + "\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("CONFLICT"));
+
+        assertEquals("taken-by-me", userRepository.findById(user.getUserId()).orElseThrow().getUsername());
+        assertEquals("taken-by-me", userService.getUserById(user.getUserId()).getUsername());
+    }
+}